@@ -0,0 +1,201 @@
+package linked_list_set;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.IntConsumer;
+
+/**
+ * {@link SetImpl} which removes nodes without allocating.
+ * <p>
+ * A node is removed from the set by a CAS of its {@code frozenNext} from {@code null} to its
+ * current successor, which also elects the only thread allowed to freeze it: that thread
+ * replaces {@code next} of the node with a reference to the node itself, updating
+ * {@code frozenNext} and retrying if a node has been inserted after it meanwhile. Nothing
+ * can be inserted after a frozen node, and the traversals which run into it unlink it,
+ * just like a node followed by a {@code RemovedNode} in {@link SetImpl}.
+ * <p>
+ * Until it is frozen, a removed node stays in the list as if it were present: nodes may be
+ * inserted after it, and a new node with the same key is inserted before it, so that the
+ * present node with a key, if any, always comes first among the nodes with that key.
+ * <p>
+ * {@link Integer#MIN_VALUE} and {@link Integer#MAX_VALUE} are the keys of the sentinel
+ * nodes and cannot be elements of the set.
+ */
+public class FlaggedSetImpl implements Set {
+    private static class Node {
+        final int x;
+        volatile Node next; // the node itself once it is frozen
+        volatile Node frozenNext; // null until the node is removed, final once it is frozen
+
+        Node(int x, Node next) {
+            this.x = x;
+            this.next = next;
+        }
+
+        Node successor() {
+            Node n = next;
+            return n == this ? frozenNext : n;
+        }
+    }
+
+    private static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+    private static final AtomicReferenceFieldUpdater<Node, Node> FROZEN_NEXT =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "frozenNext");
+
+    private final Node head = new Node(Integer.MIN_VALUE, new Node(Integer.MAX_VALUE, null));
+
+    /**
+     * Returns the last node with a key less than x, unlinking the frozen nodes on the way.
+     * Its successor has to be read again and checked by the caller, which saves allocating
+     * a window.
+     */
+    private Node findPred(int x) {
+        retry:
+        while (true) {
+            Node cur = head;
+            Node next = cur.next;
+            while (true) {
+                Node afterNext = next.next;
+                if (afterNext == next) {
+                    Node afterNextRem = next.frozenNext;
+                    if (!NEXT.compareAndSet(cur, next, afterNextRem)) {
+                        continue retry;
+                    }
+                    next = afterNextRem;
+                } else if (next.x < x) {
+                    cur = next;
+                    next = afterNext;
+                } else {
+                    return cur;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean add(int x) {
+        checkKey(x);
+        while (true) {
+            Node pred = findPred(x);
+            Node next = pred.next;
+            if (next == pred || next.x < x) {
+                continue; // pred has been frozen or a node has been inserted after it
+            }
+            if (next.x == x && next.frozenNext == null) {
+                return false;
+            }
+            if (NEXT.compareAndSet(pred, next, new Node(x, next))) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean remove(int x) {
+        checkKey(x);
+        while (true) {
+            Node pred = findPred(x);
+            Node node = pred.next;
+            if (node == pred || node.x < x) {
+                continue; // pred has been frozen or a node has been inserted after it
+            }
+            if (node.x != x || node.frozenNext != null) {
+                return false;
+            }
+            Node next = node.next;
+            if (!FROZEN_NEXT.compareAndSet(node, null, next)) {
+                continue;
+            }
+            // only this thread writes frozenNext from now on
+            while (!NEXT.compareAndSet(node, next, node)) {
+                next = node.next;
+                node.frozenNext = next;
+            }
+            NEXT.compareAndSet(pred, node, next);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean contains(int x) {
+        checkKey(x);
+        Node cur = head;
+        while (cur.x < x) {
+            cur = cur.successor();
+        }
+        return cur.x == x && cur.frozenNext == null;
+    }
+
+    /**
+     * Walks the list once from the first node in the range, skipping the removed nodes,
+     * without writing, like {@link #contains(int)}. A key is counted at most once: a node
+     * is inserted before a removed node with the same key only after it has been removed.
+     */
+    @Override
+    public int rangeCount(int lo, int hi) {
+        int count = 0;
+        for (Node cur = ceiling(lo); cur.x < hi; cur = cur.successor()) {
+            if (cur.frozenNext == null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void forEachInRange(int lo, int hi, IntConsumer action) {
+        for (Node cur = ceiling(lo); cur.x < hi; cur = cur.successor()) {
+            if (cur.frozenNext == null) {
+                action.accept(cur.x);
+            }
+        }
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private Node next = firstPresent(ceiling(Integer.MIN_VALUE));
+
+            @Override
+            public boolean hasNext() {
+                return next.x != Integer.MAX_VALUE;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int x = next.x;
+                next = firstPresent(next.successor());
+                return x;
+            }
+        };
+    }
+
+    /**
+     * Returns the first node after the head with a key not less than x, removed or not.
+     */
+    private Node ceiling(int x) {
+        Node cur = head;
+        do {
+            cur = cur.successor();
+        } while (cur.x < x);
+        return cur;
+    }
+
+    private static Node firstPresent(Node cur) {
+        while (cur.frozenNext != null) {
+            cur = cur.successor();
+        }
+        return cur;
+    }
+
+    private static void checkKey(int x) {
+        if (x == Integer.MIN_VALUE || x == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Reserved key: " + x);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package linked_list_set;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point operations on large sets: the same workload as {@link SetBenchmark} over a million
+ * keys, for the sets which do not walk a single sorted list. A set backed by
+ * {@code ConcurrentHashMap} is measured as the baseline.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HashSetBenchmark {
+    @Param({"1000000"})
+    public int keys;
+
+    @Param({"90", "50"})
+    public int containsPercent;
+
+    @Param({"SplitOrderedSet", "SkipListSet", "ConcurrentHashMap"})
+    public String set;
+
+    private Set s;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (set) {
+        case "SplitOrderedSet":
+            s = new SplitOrderedSet();
+            break;
+        case "SkipListSet":
+            s = new SkipListSet();
+            break;
+        case "ConcurrentHashMap":
+            s = new JdkSet(ConcurrentHashMap.<Integer>newKeySet());
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown set: " + set);
+        }
+        Random r = new Random(0);
+        for (int i = 0; i < keys / 2; ) {
+            if (s.add(r.nextInt(keys))) {
+                i++;
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean operation() {
+        Random r = ThreadLocalRandom.current();
+        int x = r.nextInt(keys);
+        int op = r.nextInt(100);
+        if (op < containsPercent) {
+            return s.contains(x);
+        }
+        return (op & 1) == 0 ? s.add(x) : s.remove(x);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include("^" + HashSetBenchmark.class.getName() + ".")
+                .forks(1)
+                .threads(Runtime.getRuntime().availableProcessors())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opt).run();
+    }
+
+    /**
+     * Adapter of a {@link java.util.Set} for baseline measurements.
+     */
+    static class JdkSet implements Set {
+        private final java.util.Set<Integer> set;
+
+        JdkSet(java.util.Set<Integer> set) {
+            this.set = set;
+        }
+
+        @Override
+        public boolean add(int x) {
+            return set.add(x);
+        }
+
+        @Override
+        public boolean remove(int x) {
+            return set.remove(x);
+        }
+
+        @Override
+        public boolean contains(int x) {
+            return set.contains(x);
+        }
+
+        @Override
+        public PrimitiveIterator.OfInt iterator() {
+            return set.stream().mapToInt(Integer::intValue).iterator();
+        }
+    }
+}
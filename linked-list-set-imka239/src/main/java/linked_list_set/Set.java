@@ -1,7 +1,17 @@
 package linked_list_set;
 
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
 /**
- * Stack interface.
+ * Set interface.
+ * <p>
+ * The traversals, i.e. {@link #iterator()}, {@link #rangeCount(int, int)} and
+ * {@link #forEachInRange(int, int, IntConsumer)}, are weakly consistent: they may run
+ * concurrently with the updates and never fail because of them, they report every
+ * element which is present during the whole traversal exactly once, and they may or may
+ * not report the elements which are added or removed meanwhile. So the result of a
+ * traversal is not necessarily a state the set has ever been in.
  */
 public interface Set {
 
@@ -31,4 +41,56 @@ public interface Set {
      * @return <tt>true</tt> if this set contains the specified element
      */
     boolean contains(int x);
+
+    /**
+     * Returns a weakly consistent iterator over the elements of this set. The sets
+     * ordered by the elements return them in ascending order.
+     *
+     * @return an iterator over the elements of this set
+     */
+    PrimitiveIterator.OfInt iterator();
+
+    /**
+     * Returns the number of the elements of this set from <tt>lo</tt>, inclusive,
+     * to <tt>hi</tt>, exclusive. The count is weakly consistent.
+     * <p>
+     * The sets ordered by the elements walk the range itself, so that the cost is
+     * proportional to its length once its start is found. The hash sets cannot do that:
+     * {@link SplitOrderedSet} looks up every key of the range, or scans the whole set if
+     * the range is wider. The default implementation iterates over the whole set.
+     *
+     * @param lo low endpoint of the range, inclusive
+     * @param hi high endpoint of the range, exclusive
+     * @return the number of the elements in the range
+     */
+    default int rangeCount(int lo, int hi) {
+        int count = 0;
+        for (PrimitiveIterator.OfInt it = iterator(); it.hasNext(); ) {
+            int x = it.nextInt();
+            if (lo <= x && x < hi) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Performs the action for each element of this set from <tt>lo</tt>, inclusive,
+     * to <tt>hi</tt>, exclusive, in the order of {@link #iterator()}. The traversal is
+     * weakly consistent, and its cost is the same as of {@link #rangeCount(int, int)}.
+     * <p>
+     * The default implementation iterates over the whole set.
+     *
+     * @param lo     low endpoint of the range, inclusive
+     * @param hi     high endpoint of the range, exclusive
+     * @param action action to be performed for each element in the range
+     */
+    default void forEachInRange(int lo, int hi, IntConsumer action) {
+        for (PrimitiveIterator.OfInt it = iterator(); it.hasNext(); ) {
+            int x = it.nextInt();
+            if (lo <= x && x < hi) {
+                action.accept(x);
+            }
+        }
+    }
 }
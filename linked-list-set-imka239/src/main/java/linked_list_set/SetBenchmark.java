@@ -0,0 +1,81 @@
+package linked_list_set;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Set benchmark: every operation is a {@code contains} with probability
+ * {@code containsPercent}%, otherwise an {@code add} or a {@code remove} with equal
+ * probabilities, of a random key out of {@code keys}. The set is filled with half of
+ * the keys beforehand, which is also its expected size during the measurement.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SetBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int keys;
+
+    @Param({"90"})
+    public int containsPercent;
+
+    @Param({"SetImpl", "FlaggedSetImpl", "SkipListSet"})
+    public String set;
+
+    private Set s;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (set) {
+        case "SetImpl":
+            s = new SetImpl();
+            break;
+        case "FlaggedSetImpl":
+            s = new FlaggedSetImpl();
+            break;
+        case "SkipListSet":
+            s = new SkipListSet();
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown set: " + set);
+        }
+        Random r = new Random(0);
+        for (int i = 0; i < keys / 2; ) {
+            if (s.add(r.nextInt(keys))) {
+                i++;
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean operation() {
+        Random r = ThreadLocalRandom.current();
+        int x = r.nextInt(keys);
+        int op = r.nextInt(100);
+        if (op < containsPercent) {
+            return s.contains(x);
+        }
+        return (op & 1) == 0 ? s.add(x) : s.remove(x);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include("^" + SetBenchmark.class.getName() + ".")
+                .forks(1)
+                .threads(Runtime.getRuntime().availableProcessors())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -2,6 +2,10 @@ package linked_list_set;
 
 import kotlinx.atomicfu.*;
 
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
 public class SetImpl implements Set {
 
     private static class AbstractNode {
@@ -53,27 +57,31 @@ public class SetImpl implements Set {
 
     private final AtomicRef<? extends AbstractNode> head = new AtomicRef<>(new Node(Integer.MIN_VALUE, new Node(Integer.MAX_VALUE, null)));
 
-    private Window goFrom(Node cur, Node next, int x) {
-        AbstractNode afterNext = AbstractNode.next(next);
-        if (afterNext instanceof RemovedNode) {
-            Node afterNextRem = AbstractNode.asRemoved(afterNext).node;
-            return cur.next.compareAndSet(next, afterNextRem) ? goFrom(cur, afterNextRem, x) : null;
-        } else {
-            return next.x < x ? goFrom(next, AbstractNode.asReal(afterNext), x) : new Window(cur, next);
-        }
-    }
-
     /**
-     * Returns the {@link Window}, where cur.x < x <= next.x
+     * Returns the {@link Window}, where cur.x < x <= next.x,
+     * unlinking the removed nodes on the way
      */
     private Window findWindow(int x) {
-        Window ans;
-        do {
+        retry:
+        while (true) {
             Node cur = AbstractNode.asReal(head.getValue());
             Node next = AbstractNode.asReal(AbstractNode.next(cur));
-            ans = goFrom(cur, next, x);
-        } while (ans == null);
-        return ans;
+            while (true) {
+                AbstractNode afterNext = AbstractNode.next(next);
+                if (afterNext instanceof RemovedNode) {
+                    Node afterNextRem = AbstractNode.asRemoved(afterNext).node;
+                    if (!cur.next.compareAndSet(next, afterNextRem)) {
+                        continue retry;
+                    }
+                    next = afterNextRem;
+                } else if (next.x < x) {
+                    cur = next;
+                    next = AbstractNode.asReal(afterNext);
+                } else {
+                    return new Window(cur, next);
+                }
+            }
+        }
     }
 
     @Override
@@ -109,9 +117,107 @@ public class SetImpl implements Set {
         }
     }
 
+    /**
+     * Walks through the removed nodes without unlinking them, so it never writes nor retries.
+     */
     @Override
     public boolean contains(int x) {
-        Window w = findWindow(x);
-        return w.next.x == x;
+        Node cur = AbstractNode.asReal(head.getValue());
+        while (cur.x < x) {
+            AbstractNode next = cur.next.getValue();
+            cur = next instanceof RemovedNode ? AbstractNode.asRemoved(next).node : AbstractNode.asReal(next);
+        }
+        return cur.x == x && !(cur.next.getValue() instanceof RemovedNode);
+    }
+
+    /**
+     * Walks the list once from the first node in the range, skipping the removed nodes,
+     * so it takes O(position of lo + length of the range) steps. Like {@link #contains(int)},
+     * it never writes nor retries.
+     */
+    @Override
+    public int rangeCount(int lo, int hi) {
+        int count = 0;
+        Node cur = ceiling(lo);
+        while (cur.x < hi) {
+            AbstractNode next = cur.next.getValue();
+            if (next instanceof RemovedNode) {
+                cur = AbstractNode.asRemoved(next).node;
+            } else {
+                count++;
+                cur = AbstractNode.asReal(next);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Walks the list the same way as {@link #rangeCount(int, int)}.
+     */
+    @Override
+    public void forEachInRange(int lo, int hi, IntConsumer action) {
+        Node cur = ceiling(lo);
+        while (cur.x < hi) {
+            AbstractNode next = cur.next.getValue();
+            if (next instanceof RemovedNode) {
+                cur = AbstractNode.asRemoved(next).node;
+            } else {
+                action.accept(cur.x);
+                cur = AbstractNode.asReal(next);
+            }
+        }
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new SetIterator();
+    }
+
+    /**
+     * Returns the first node after the head with cur.x >= x, removed or not
+     */
+    private Node ceiling(int x) {
+        Node cur = AbstractNode.asReal(head.getValue());
+        do {
+            cur = successor(cur);
+        } while (cur.x < x);
+        return cur;
+    }
+
+    private static Node successor(Node node) {
+        AbstractNode next = node.next.getValue();
+        return next instanceof RemovedNode ? AbstractNode.asRemoved(next).node : AbstractNode.asReal(next);
+    }
+
+    /**
+     * Returns the node itself if it has not been removed, otherwise the first node after it
+     * which has not, the tail at the latest
+     */
+    private static Node firstPresent(Node cur) {
+        AbstractNode next = cur.next.getValue();
+        while (next instanceof RemovedNode) {
+            cur = AbstractNode.asRemoved(next).node;
+            next = cur.next.getValue();
+        }
+        return cur;
+    }
+
+    private class SetIterator implements PrimitiveIterator.OfInt {
+        private Node next = firstPresent(ceiling(Integer.MIN_VALUE));
+
+        @Override
+        public boolean hasNext() {
+            return next.x != Integer.MAX_VALUE;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int x = next.x;
+            next = firstPresent(successor(next));
+            return x;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,261 @@
+package linked_list_set;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Lock-free skip list.
+ * <p>
+ * Every level is a sorted list removed from the same way as in {@link SetImpl}: a node is
+ * marked on a level by replacing its successor there with a {@link RemovedNode} wrapping
+ * it, and is then unlinked by the traversals which run into it. A node is removed from
+ * the upper levels first; marking it on the bottom level is what removes it from the set.
+ * A node is added to the bottom level first, which adds it to the set, and then linked
+ * into the upper levels one by one.
+ * <p>
+ * The levels of the nodes are geometrically distributed, so all the operations take
+ * O(log n) steps in expectation. {@link #contains(int)} does not unlink anything and is
+ * wait-free. Neither do the traversals, which walk the bottom level; a range scan descends
+ * to its first node the same way as {@link #contains(int)}, so it takes O(log n + k) steps
+ * for k nodes in the range.
+ * <p>
+ * {@link Integer#MIN_VALUE} and {@link Integer#MAX_VALUE} are the keys of the sentinel
+ * nodes and cannot be elements of the set.
+ */
+public class SkipListSet implements Set {
+    private static final int MAX_LEVEL = 24;
+
+    private static abstract class AbstractNode {
+        static Node asReal(AbstractNode node) {
+            return node instanceof RemovedNode ? ((RemovedNode) node).node : (Node) node;
+        }
+    }
+
+    private static class Node extends AbstractNode {
+        final int x;
+        final int topLevel;
+        final AtomicReferenceArray<AbstractNode> next;
+
+        Node(int x, int topLevel) {
+            this.x = x;
+            this.topLevel = topLevel;
+            this.next = new AtomicReferenceArray<>(topLevel + 1);
+        }
+    }
+
+    private static class RemovedNode extends AbstractNode {
+        final Node node;
+
+        RemovedNode(Node node) {
+            this.node = node;
+        }
+    }
+
+    private final Node head = new Node(Integer.MIN_VALUE, MAX_LEVEL - 1);
+
+    public SkipListSet() {
+        Node tail = new Node(Integer.MAX_VALUE, MAX_LEVEL - 1);
+        for (int level = 0; level < MAX_LEVEL; level++) {
+            head.next.set(level, tail);
+        }
+    }
+
+    /**
+     * Fills {@code preds} and {@code succs} with the windows of all the levels, where
+     * preds[level].x < x <= succs[level].x, unlinking the marked nodes on the way.
+     *
+     * @return {@code true} if succs[0].x == x
+     */
+    private boolean find(int x, Node[] preds, Node[] succs) {
+        retry:
+        while (true) {
+            Node pred = head;
+            for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+                Node cur = AbstractNode.asReal(pred.next.get(level));
+                while (true) {
+                    AbstractNode next = cur.next.get(level);
+                    while (next instanceof RemovedNode) {
+                        Node succ = ((RemovedNode) next).node;
+                        if (!pred.next.compareAndSet(level, cur, succ)) {
+                            continue retry;
+                        }
+                        cur = succ;
+                        next = cur.next.get(level);
+                    }
+                    if (cur.x < x) {
+                        pred = cur;
+                        cur = (Node) next;
+                    } else {
+                        break;
+                    }
+                }
+                preds[level] = pred;
+                succs[level] = cur;
+            }
+            return succs[0].x == x;
+        }
+    }
+
+    @Override
+    public boolean add(int x) {
+        checkKey(x);
+        int topLevel = randomLevel();
+        Node[] preds = new Node[MAX_LEVEL];
+        Node[] succs = new Node[MAX_LEVEL];
+        while (true) {
+            if (find(x, preds, succs)) {
+                return false;
+            }
+            Node node = new Node(x, topLevel);
+            for (int level = 0; level <= topLevel; level++) {
+                node.next.set(level, succs[level]);
+            }
+            if (!preds[0].next.compareAndSet(0, succs[0], node)) {
+                continue;
+            }
+            for (int level = 1; level <= topLevel; level++) {
+                while (true) {
+                    AbstractNode next = node.next.get(level);
+                    if (next instanceof RemovedNode) {
+                        return true; // the node is being removed, no need to link it further
+                    }
+                    if (next != succs[level] && !node.next.compareAndSet(level, next, succs[level])) {
+                        continue;
+                    }
+                    if (preds[level].next.compareAndSet(level, succs[level], node)) {
+                        break;
+                    }
+                    find(x, preds, succs);
+                    if (succs[0] != node) {
+                        return true; // the node has been removed
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public boolean remove(int x) {
+        checkKey(x);
+        Node[] preds = new Node[MAX_LEVEL];
+        Node[] succs = new Node[MAX_LEVEL];
+        if (!find(x, preds, succs)) {
+            return false;
+        }
+        Node victim = succs[0];
+        for (int level = victim.topLevel; level > 0; level--) {
+            AbstractNode next = victim.next.get(level);
+            while (!(next instanceof RemovedNode)) {
+                victim.next.compareAndSet(level, next, new RemovedNode((Node) next));
+                next = victim.next.get(level);
+            }
+        }
+        while (true) {
+            AbstractNode next = victim.next.get(0);
+            if (next instanceof RemovedNode) {
+                return false; // removed concurrently
+            }
+            if (victim.next.compareAndSet(0, next, new RemovedNode((Node) next))) {
+                find(x, preds, succs); // unlink the node
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(int x) {
+        checkKey(x);
+        return ceiling(x).x == x;
+    }
+
+    @Override
+    public int rangeCount(int lo, int hi) {
+        int count = 0;
+        for (Node cur = ceiling(lo); cur.x < hi; cur = firstPresent(AbstractNode.asReal(cur.next.get(0)))) {
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public void forEachInRange(int lo, int hi, IntConsumer action) {
+        for (Node cur = ceiling(lo); cur.x < hi; cur = firstPresent(AbstractNode.asReal(cur.next.get(0)))) {
+            action.accept(cur.x);
+        }
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private Node next = ceiling(Integer.MIN_VALUE);
+
+            @Override
+            public boolean hasNext() {
+                return next.x != Integer.MAX_VALUE;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int x = next.x;
+                next = firstPresent(AbstractNode.asReal(next.next.get(0)));
+                return x;
+            }
+        };
+    }
+
+    /**
+     * Returns the first node after the head with x <= node.x which has not been removed,
+     * the tail at the latest, walking through the marked nodes without unlinking them.
+     */
+    private Node ceiling(int x) {
+        Node pred = head;
+        Node cur = null;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            cur = AbstractNode.asReal(pred.next.get(level));
+            while (true) {
+                AbstractNode next = cur.next.get(level);
+                while (next instanceof RemovedNode) {
+                    cur = ((RemovedNode) next).node;
+                    next = cur.next.get(level);
+                }
+                if (cur.x < x) {
+                    pred = cur;
+                    cur = (Node) next;
+                } else {
+                    break;
+                }
+            }
+        }
+        return cur;
+    }
+
+    /**
+     * Returns the node itself if it has not been removed from the bottom level, otherwise
+     * the first node after it which has not.
+     */
+    private static Node firstPresent(Node cur) {
+        AbstractNode next = cur.next.get(0);
+        while (next instanceof RemovedNode) {
+            cur = ((RemovedNode) next).node;
+            next = cur.next.get(0);
+        }
+        return cur;
+    }
+
+    private static void checkKey(int x) {
+        if (x == Integer.MIN_VALUE || x == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Reserved key: " + x);
+        }
+    }
+
+    private static int randomLevel() {
+        return Integer.numberOfTrailingZeros(ThreadLocalRandom.current().nextInt() | 1 << (MAX_LEVEL - 1));
+    }
+}
@@ -0,0 +1,317 @@
+package linked_list_set;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.IntConsumer;
+
+/**
+ * Lock-free split-ordered hash set (Shalev, Shavit).
+ * <p>
+ * All the elements are kept in a single lock-free sorted list, removed from the same
+ * way as in {@link SetImpl}, but ordered by the bit-reversed hash of the element instead
+ * of the element itself. In this order the elements of every bucket, i.e. with the same
+ * lowest bits of the hash, are adjacent, and each bucket starts with a sentinel node.
+ * An operation starts walking the list from the sentinel of its bucket, so it takes O(1)
+ * steps in expectation.
+ * <p>
+ * The sentinels are found through a directory of buckets, which is a fixed array of
+ * segments allocated on demand, so doubling the number of buckets neither copies the
+ * directory nor moves any node: it only changes the number of lowest hash bits in use,
+ * and the sentinel of a new bucket is inserted into the list, splitting its parent
+ * bucket, on the first access.
+ * <p>
+ * The elements are not ordered, so the iterator returns them in the split order, and a
+ * range is either looked up key by key or filtered out of the whole set, whichever is
+ * shorter.
+ */
+public class SplitOrderedSet implements Set {
+    private static final int MAX_LOAD = 2; // average number of elements per bucket
+    private static final int MAX_BUCKETS = 1 << 30;
+    private static final int UNHASH = 0x144CBC89; // the inverse of 0x9E3779B9 modulo 2^32
+
+    private static abstract class AbstractNode {
+    }
+
+    private static class Node extends AbstractNode {
+        final long key; // split-order key, see regularKey and sentinelKey
+        volatile AbstractNode next;
+
+        Node(long key, AbstractNode next) {
+            this.key = key;
+            this.next = next;
+        }
+    }
+
+    private static class RemovedNode extends AbstractNode {
+        final Node node;
+
+        RemovedNode(Node node) {
+            this.node = node;
+        }
+    }
+
+    private static class Window {
+        Node cur, next;
+
+        Window(Node cur, Node next) {
+            this.cur = cur;
+            this.next = next;
+        }
+    }
+
+    private static final AtomicReferenceFieldUpdater<Node, AbstractNode> NEXT =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, AbstractNode.class, "next");
+    private static final AtomicIntegerFieldUpdater<SplitOrderedSet> BUCKETS =
+            AtomicIntegerFieldUpdater.newUpdater(SplitOrderedSet.class, "buckets");
+
+    // segment k holds buckets [2^(k-1), 2^k), segment 0 holds bucket 0
+    private final AtomicReferenceArray<AtomicReferenceArray<Node>> segments = new AtomicReferenceArray<>(32);
+    private final AtomicInteger count = new AtomicInteger();
+    private volatile int buckets = 2; // power of two
+
+    public SplitOrderedSet() {
+        Node head = new Node(sentinelKey(0), new Node(Long.MAX_VALUE, null));
+        AtomicReferenceArray<Node> segment = new AtomicReferenceArray<>(1);
+        segment.set(0, head);
+        segments.set(0, segment);
+    }
+
+    /**
+     * Returns the {@link Window} after the start node, where cur.key < key <= next.key,
+     * unlinking the removed nodes on the way
+     */
+    private Window findWindow(Node start, long key) {
+        retry:
+        while (true) {
+            Node cur = start;
+            Node next = (Node) cur.next;
+            while (true) {
+                AbstractNode afterNext = next.next;
+                if (afterNext instanceof RemovedNode) {
+                    Node afterNextRem = ((RemovedNode) afterNext).node;
+                    if (!NEXT.compareAndSet(cur, next, afterNextRem)) {
+                        continue retry;
+                    }
+                    next = afterNextRem;
+                } else if (next.key < key) {
+                    cur = next;
+                    next = (Node) afterNext;
+                } else {
+                    return new Window(cur, next);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean add(int x) {
+        int hash = hash(x);
+        long key = regularKey(hash);
+        Node bucket = bucket(hash);
+        while (true) {
+            Window w = findWindow(bucket, key);
+            if (w.next.key == key) {
+                return false;
+            }
+            Node node = new Node(key, w.next);
+            if (NEXT.compareAndSet(w.cur, w.next, node)) {
+                int b = buckets;
+                if (count.incrementAndGet() > MAX_LOAD * b && b < MAX_BUCKETS) {
+                    // losing this CAS means that another thread has already doubled them
+                    BUCKETS.compareAndSet(this, b, 2 * b);
+                }
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean remove(int x) {
+        int hash = hash(x);
+        long key = regularKey(hash);
+        Node bucket = bucket(hash);
+        while (true) {
+            Window w = findWindow(bucket, key);
+            if (w.next.key != key) {
+                return false;
+            }
+            AbstractNode nodeAfterX = w.next.next;
+            if (nodeAfterX instanceof RemovedNode) {
+                continue;
+            }
+            if (NEXT.compareAndSet(w.next, nodeAfterX, new RemovedNode((Node) nodeAfterX))) {
+                NEXT.compareAndSet(w.cur, w.next, nodeAfterX);
+                count.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Walks through the removed nodes without unlinking them, so it never writes nor retries
+     * once the sentinel of the bucket exists.
+     */
+    @Override
+    public boolean contains(int x) {
+        int hash = hash(x);
+        long key = regularKey(hash);
+        Node cur = bucket(hash);
+        while (cur.key < key) {
+            AbstractNode next = cur.next;
+            cur = next instanceof RemovedNode ? ((RemovedNode) next).node : (Node) next;
+        }
+        return cur.key == key && !(cur.next instanceof RemovedNode);
+    }
+
+    /**
+     * Calls {@link #contains(int)} for every key of a range which is not wider than the
+     * set, since the elements are not ordered, so the cost is O(min(hi - lo, n)) rather
+     * than proportional to the number of elements in the range.
+     */
+    @Override
+    public int rangeCount(int lo, int hi) {
+        if ((long) hi - lo > count.get()) {
+            return Set.super.rangeCount(lo, hi);
+        }
+        int found = 0;
+        for (int x = lo; x < hi; x++) {
+            if (contains(x)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Looks the range up the same way as {@link #rangeCount(int, int)}.
+     */
+    @Override
+    public void forEachInRange(int lo, int hi, IntConsumer action) {
+        if ((long) hi - lo > count.get()) {
+            Set.super.forEachInRange(lo, hi, action);
+            return;
+        }
+        for (int x = lo; x < hi; x++) {
+            if (contains(x)) {
+                action.accept(x);
+            }
+        }
+    }
+
+    /**
+     * Walks the whole list once, skipping the sentinels and the removed nodes.
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private Node next = firstElement(segments.get(0).get(0));
+
+            @Override
+            public boolean hasNext() {
+                return next.key != Long.MAX_VALUE;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int x = element(next.key);
+                AbstractNode afterNext = next.next;
+                next = firstElement(afterNext instanceof RemovedNode ? ((RemovedNode) afterNext).node : (Node) afterNext);
+                return x;
+            }
+        };
+    }
+
+    /**
+     * Returns the node itself if it is an element which has not been removed, otherwise
+     * the first such node after it, the tail at the latest.
+     */
+    private static Node firstElement(Node cur) {
+        while (true) {
+            AbstractNode next = cur.next;
+            if (next instanceof RemovedNode) {
+                cur = ((RemovedNode) next).node;
+            } else if ((cur.key & 1) == 0) {
+                cur = (Node) next; // a sentinel
+            } else {
+                return cur;
+            }
+        }
+    }
+
+    private Node bucket(int hash) {
+        return sentinel(hash & (buckets - 1));
+    }
+
+    /**
+     * Returns the sentinel of the bucket, inserting it if needed.
+     */
+    private Node sentinel(int b) {
+        AtomicReferenceArray<Node> segment = segment(b);
+        int index = segmentIndex(b);
+        Node sentinel = segment.get(index);
+        if (sentinel == null) {
+            sentinel = initializeBucket(b);
+            segment.set(index, sentinel);
+        }
+        return sentinel;
+    }
+
+    /**
+     * Inserts the sentinel of the bucket into the list after the sentinel of its parent, the
+     * bucket it is split from, unless another thread has already done it.
+     */
+    private Node initializeBucket(int b) {
+        Node parent = sentinel(b & ~Integer.highestOneBit(b));
+        long key = sentinelKey(b);
+        while (true) {
+            Window w = findWindow(parent, key);
+            if (w.next.key == key) {
+                return w.next;
+            }
+            Node sentinel = new Node(key, w.next);
+            if (NEXT.compareAndSet(w.cur, w.next, sentinel)) {
+                return sentinel;
+            }
+        }
+    }
+
+    private AtomicReferenceArray<Node> segment(int b) {
+        int k = 32 - Integer.numberOfLeadingZeros(b);
+        AtomicReferenceArray<Node> segment = segments.get(k);
+        if (segment == null) {
+            segments.compareAndSet(k, null, new AtomicReferenceArray<Node>(1 << Math.max(0, k - 1)));
+            segment = segments.get(k);
+        }
+        return segment;
+    }
+
+    private static int segmentIndex(int b) {
+        return b == 0 ? 0 : b - Integer.highestOneBit(b);
+    }
+
+    private static int hash(int x) {
+        int h = x * 0x9E3779B9; // a bijection, so that equal hashes mean equal elements
+        return h ^ h >>> 16;
+    }
+
+    private static int element(long regularKey) {
+        int h = Integer.reverse((int) (regularKey >>> 1));
+        return (h ^ h >>> 16) * UNHASH;
+    }
+
+    // the bit-reversed hash, shifted to make room for the lowest bit set in the regular nodes only
+    private static long regularKey(int hash) {
+        return (Integer.reverse(hash) & 0xFFFFFFFFL) << 1 | 1;
+    }
+
+    private static long sentinelKey(int bucket) {
+        return (Integer.reverse(bucket) & 0xFFFFFFFFL) << 1;
+    }
+}
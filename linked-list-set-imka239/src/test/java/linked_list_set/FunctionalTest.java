@@ -2,21 +2,204 @@ package linked_list_set;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
 import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class FunctionalTest {
     private static Random R = new Random(0);
 
     @Test
     public void test() {
-        Set mySet = new SetImpl();
+        test(new SetImpl(), 30);
+    }
+
+    @Test
+    public void testFlagged() {
+        test(new FlaggedSetImpl(), 30);
+    }
+
+    @Test
+    public void testSplitOrdered() {
+        test(new SplitOrderedSet(), 30);
+    }
+
+    @Test
+    public void testSplitOrderedLarge() {
+        test(new SplitOrderedSet(), 1_000_000);
+    }
+
+    @Test
+    public void testSkipList() {
+        test(new SkipListSet(), 30);
+    }
+
+    @Test
+    public void testSkipListLarge() {
+        test(new SkipListSet(), 100_000);
+    }
+
+    @Test
+    public void testRange() {
+        testRange(new SetImpl(), true);
+    }
+
+    @Test
+    public void testFlaggedRange() {
+        testRange(new FlaggedSetImpl(), true);
+    }
+
+    @Test
+    public void testSplitOrderedRange() {
+        testRange(new SplitOrderedSet(), false);
+    }
+
+    @Test
+    public void testSkipListRange() {
+        testRange(new SkipListSet(), true);
+    }
+
+    private void testRange(Set mySet, boolean ordered) {
+        int keys = 1000;
+        TreeSet<Integer> javaSet = new TreeSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            int x = R.nextInt(keys);
+            if (R.nextBoolean()) {
+                assertEquals(javaSet.add(x), mySet.add(x));
+            } else {
+                assertEquals(javaSet.remove(x), mySet.remove(x));
+            }
+            if (i % 100 != 0) {
+                continue;
+            }
+            int lo = R.nextInt(keys + 2) - 1;
+            int hi = lo + R.nextInt(keys + 2 - lo);
+            List<Integer> expected = new ArrayList<>(javaSet.subSet(lo, hi));
+            assertEquals(expected.size(), mySet.rangeCount(lo, hi));
+            List<Integer> actual = new ArrayList<>();
+            mySet.forEachInRange(lo, hi, actual::add);
+            assertEquals(expected, sorted(actual, ordered));
+            actual.clear();
+            for (PrimitiveIterator.OfInt it = mySet.iterator(); it.hasNext(); ) {
+                actual.add(it.nextInt());
+            }
+            assertEquals(new ArrayList<>(javaSet), sorted(actual, ordered));
+        }
+    }
+
+    @Test
+    public void testConcurrentRange() throws InterruptedException {
+        testConcurrentRange(new SetImpl(), true);
+    }
+
+    @Test
+    public void testFlaggedConcurrentRange() throws InterruptedException {
+        testConcurrentRange(new FlaggedSetImpl(), true);
+    }
+
+    @Test
+    public void testSplitOrderedConcurrentRange() throws InterruptedException {
+        testConcurrentRange(new SplitOrderedSet(), false);
+    }
+
+    @Test
+    public void testSkipListConcurrentRange() throws InterruptedException {
+        testConcurrentRange(new SkipListSet(), true);
+    }
+
+    /**
+     * The even keys are added beforehand and never touched, while the updaters add and
+     * remove the odd keys, each its own ones, so every traversal has to report all the
+     * even keys in its range exactly once.
+     */
+    private void testConcurrentRange(final Set mySet, boolean ordered) throws InterruptedException {
+        final int keys = 2000;
+        final int updaters = 3;
+        for (int x = 0; x < keys; x += 2) {
+            mySet.add(x);
+        }
+        final AtomicBoolean stop = new AtomicBoolean();
+        Thread[] threads = new Thread[updaters];
+        for (int t = 0; t < updaters; t++) {
+            final int id = t;
+            threads[t] = new Thread(() -> {
+                Random r = ThreadLocalRandom.current();
+                while (!stop.get()) {
+                    int x = 2 * (updaters * r.nextInt(keys / 2 / updaters) + id) + 1;
+                    if (r.nextBoolean()) {
+                        mySet.add(x);
+                    } else {
+                        mySet.remove(x);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        try {
+            for (int i = 0; i < 1000; i++) {
+                int lo = R.nextInt(keys);
+                int hi = lo + R.nextInt(keys - lo + 1);
+                int untouched = (hi + 1) / 2 - (lo + 1) / 2;
+                int count = mySet.rangeCount(lo, hi);
+                assertTrue(untouched <= count && count <= hi - lo);
+                List<Integer> seen = new ArrayList<>();
+                mySet.forEachInRange(lo, hi, seen::add);
+                checkTraversal(sorted(seen, ordered), lo, hi);
+                seen.clear();
+                for (PrimitiveIterator.OfInt it = mySet.iterator(); it.hasNext(); ) {
+                    seen.add(it.nextInt());
+                }
+                checkTraversal(sorted(seen, ordered), 0, keys);
+            }
+        } finally {
+            stop.set(true);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+    }
+
+    /**
+     * Checks that the traversal is ascending without duplicates, stays in the range and
+     * reports every even key of it.
+     */
+    private static void checkTraversal(List<Integer> seen, int lo, int hi) {
+        int expected = lo + (lo & 1);
+        for (int i = 0; i < seen.size(); i++) {
+            int x = seen.get(i);
+            assertTrue(lo <= x && x < hi);
+            assertTrue(i == 0 || seen.get(i - 1) < x);
+            if (x > expected) {
+                assertEquals(expected, x); // an even key is missing
+            }
+            if (x == expected) {
+                expected += 2;
+            }
+        }
+        assertTrue(expected >= hi);
+    }
+
+    private static List<Integer> sorted(List<Integer> list, boolean ordered) {
+        if (!ordered) {
+            Collections.sort(list);
+        }
+        return list;
+    }
+
+    private void test(Set mySet, int keys) {
         java.util.Set<Integer> javaSet = new HashSet<>();
         for (int i = 0; i < 1_000_000; i++) {
             int op = R.nextInt(3);
-            int x = R.nextInt(30);
+            int x = R.nextInt(keys);
             switch (op) {
             case 0:
                 // add
@@ -4,6 +4,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.kotlinx.lincheck.verifier.VerifierState;
 
 import java.util.HashSet;
+import java.util.PrimitiveIterator;
 
 public class SequentialSetImpl extends VerifierState implements Set {
     private HashSet<Integer> set = new HashSet<>();
@@ -23,6 +24,11 @@ public class SequentialSetImpl extends VerifierState implements Set {
         return set.contains(x);
     }
 
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return set.stream().mapToInt(Integer::intValue).iterator();
+    }
+
     @NotNull
     @Override
     protected Object extractState() {
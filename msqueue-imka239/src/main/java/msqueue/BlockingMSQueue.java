@@ -0,0 +1,205 @@
+package msqueue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Blocking layer over a {@link Queue}, {@link MSQueue} by default.
+ * <p>
+ * Consumers waiting in {@link #take()} or {@link #poll(long, TimeUnit)} first spin
+ * for an adaptively chosen number of dequeue attempts and then register themselves
+ * in a stack of waiters and park. Enqueuers only read the stack of waiters and unpark
+ * one of them if it is not empty, so an enqueue without waiters performs no shared
+ * writes besides the ones of the underlying queue.
+ */
+public class BlockingMSQueue implements Queue {
+    private static final int MIN_SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 16 : 0;
+    private static final int MAX_SPINS = MIN_SPINS << 6;
+
+    private static class Waiter {
+        volatile Thread thread;
+        Waiter next;
+
+        Waiter(Thread thread) {
+            this.thread = thread;
+        }
+    }
+
+    private static final AtomicReferenceFieldUpdater<BlockingMSQueue, Waiter> WAITERS =
+            AtomicReferenceFieldUpdater.newUpdater(BlockingMSQueue.class, Waiter.class, "waiters");
+    private static final AtomicReferenceFieldUpdater<Waiter, Thread> THREAD =
+            AtomicReferenceFieldUpdater.newUpdater(Waiter.class, Thread.class, "thread");
+
+    private final Queue queue;
+    private volatile Waiter waiters;
+    private volatile int spins = MIN_SPINS;
+
+    public BlockingMSQueue() {
+        this(new MSQueue());
+    }
+
+    public BlockingMSQueue(Queue queue) {
+        this.queue = queue;
+    }
+
+    /**
+     * Inserts the specified element into this queue. The queue is unbounded,
+     * so this method never blocks
+     *
+     * @param x the element to add
+     */
+    public void put(int x) {
+        enqueue(x);
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, waiting if necessary
+     * until an element becomes available
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public int take() throws InterruptedException {
+        return await(false, 0L);
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, waiting up to the
+     * specified time if necessary for an element to become available,
+     * or returns {@link Integer#MIN_VALUE} if the time elapses
+     *
+     * @param timeout how long to wait before giving up
+     * @param unit the unit of the {@code timeout} argument
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public int poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return await(true, unit.toNanos(timeout));
+    }
+
+    @Override
+    public void enqueue(int x) {
+        queue.enqueue(x);
+        if (waiters != null) {
+            signal();
+        }
+    }
+
+    @Override
+    public void enqueueAll(int[] xs, int from, int to) {
+        queue.enqueueAll(xs, from, to);
+        for (int i = from; i < to && waiters != null; i++) {
+            signal();
+        }
+    }
+
+    @Override
+    public int dequeue() {
+        return queue.dequeue();
+    }
+
+    @Override
+    public int peek() {
+        return queue.peek();
+    }
+
+    @Override
+    public int drainTo(int[] dst, int max) {
+        return queue.drainTo(dst, max);
+    }
+
+    private int await(boolean timed, long nanos) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        int x = spin();
+        if (x != Integer.MIN_VALUE) {
+            return x;
+        }
+        long deadline = timed ? System.nanoTime() + nanos : 0L;
+        Thread current = Thread.currentThread();
+        while (true) {
+            Waiter w = new Waiter(current);
+            push(w);
+            // re-check after the registration, so that a concurrent enqueue either sees us or is seen by us
+            x = queue.dequeue();
+            boolean interrupted = false;
+            while (x == Integer.MIN_VALUE && w.thread != null && !interrupted && !(timed && nanos <= 0)) {
+                if (timed) {
+                    LockSupport.parkNanos(this, nanos);
+                    nanos = deadline - System.nanoTime();
+                } else {
+                    LockSupport.park(this);
+                }
+                interrupted = Thread.interrupted();
+            }
+            boolean signalled = !THREAD.compareAndSet(w, current, null);
+            if (!signalled && waiters == w) {
+                WAITERS.compareAndSet(this, w, w.next);
+            }
+            if (x != Integer.MIN_VALUE) {
+                // the wake-up was meant for another element, pass it on
+                if (signalled) {
+                    signal();
+                }
+                return x;
+            }
+            x = queue.dequeue();
+            if (x != Integer.MIN_VALUE) {
+                if (interrupted) {
+                    // the element is taken, so report the interrupt by the status instead
+                    current.interrupt();
+                }
+                return x;
+            }
+            if (interrupted) {
+                throw new InterruptedException();
+            }
+            if (timed && nanos <= 0) {
+                return Integer.MIN_VALUE;
+            }
+        }
+    }
+
+    private int spin() {
+        int limit = spins;
+        for (int i = 0; i < limit; i++) {
+            int x = queue.dequeue();
+            if (x != Integer.MIN_VALUE) {
+                if (limit < MAX_SPINS) {
+                    spins = limit << 1;
+                }
+                return x;
+            }
+        }
+        if (limit > MIN_SPINS) {
+            spins = limit >> 1;
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    private void push(Waiter w) {
+        while (true) {
+            Waiter curHead = waiters;
+            w.next = curHead;
+            if (WAITERS.compareAndSet(this, curHead, w)) {
+                return;
+            }
+        }
+    }
+
+    private void signal() {
+        while (true) {
+            Waiter w = waiters;
+            if (w == null) {
+                return;
+            }
+            if (WAITERS.compareAndSet(this, w, w.next)) {
+                Thread thread = w.thread;
+                if (thread != null && THREAD.compareAndSet(w, thread, null)) {
+                    LockSupport.unpark(thread);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package msqueue;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * {@link MSQueue} with a fixed capacity.
+ * <p>
+ * The capacity is split into permits kept in a striped counter: every thread
+ * takes a permit from its own stripe before an insertion and returns one to it
+ * after a removal, and only turns to the other stripes when its own one is
+ * exhausted. Thus the queue never holds more than {@code capacity} elements,
+ * while producers and consumers do not contend on a single counter.
+ * {@link #offer(int)} may fail spuriously if permits move between stripes
+ * during its scan.
+ * <p>
+ * {@link Integer#MIN_VALUE} marks an empty queue and cannot be an element, since
+ * dequeuing it could not return its permit.
+ */
+public class BoundedMSQueue implements Queue {
+    private static final int PADDING = 16; // ints per cache line, so that stripes do not share one
+
+    private final MSQueue queue = new MSQueue();
+    private final int capacity;
+    private final int mask;
+    private final AtomicIntegerArray permits;
+
+    public BoundedMSQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors() && stripes < capacity) {
+            stripes <<= 1;
+        }
+        this.mask = stripes - 1;
+        this.permits = new AtomicIntegerArray(stripes * PADDING);
+        for (int i = 0; i < stripes; i++) {
+            permits.set(i * PADDING, capacity / stripes + (i < capacity % stripes ? 1 : 0));
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Inserts the specified element into this queue if it is not full
+     *
+     * @param x the element to add
+     * @return {@code true} if the element was added, {@code false} if this queue is full
+     * @throws IllegalArgumentException if the element is {@link Integer#MIN_VALUE}
+     */
+    public boolean offer(int x) {
+        checkElement(x);
+        if (!acquire(1)) {
+            return false;
+        }
+        queue.enqueue(x);
+        return true;
+    }
+
+    /**
+     * Inserts elements {@code xs[from]}, ..., {@code xs[to - 1]} into this queue
+     * if there is room for all of them
+     *
+     * @return {@code true} if the elements were added, {@code false} if there is not enough room
+     * @throws IllegalArgumentException if any of the elements is {@link Integer#MIN_VALUE}
+     * @see #enqueueAll(int[], int, int)
+     */
+    public boolean offerAll(int[] xs, int from, int to) {
+        for (int i = from; i < to; i++) {
+            checkElement(xs[i]);
+        }
+        if (from >= to) {
+            return true;
+        }
+        if (!acquire(to - from)) {
+            return false;
+        }
+        queue.enqueueAll(xs, from, to);
+        return true;
+    }
+
+    /**
+     * @throws IllegalStateException if this queue is full
+     */
+    @Override
+    public void enqueue(int x) {
+        if (!offer(x)) {
+            throw new IllegalStateException("Queue full");
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if there is not enough room for all the elements
+     */
+    @Override
+    public void enqueueAll(int[] xs, int from, int to) {
+        if (!offerAll(xs, from, to)) {
+            throw new IllegalStateException("Queue full");
+        }
+    }
+
+    @Override
+    public int dequeue() {
+        int x = queue.dequeue();
+        if (x != Integer.MIN_VALUE) {
+            release(1);
+        }
+        return x;
+    }
+
+    @Override
+    public int peek() {
+        return queue.peek();
+    }
+
+    @Override
+    public int drainTo(int[] dst, int max) {
+        int count = queue.drainTo(dst, max);
+        if (count > 0) {
+            release(count);
+        }
+        return count;
+    }
+
+    private static void checkElement(int x) {
+        if (x == Integer.MIN_VALUE) {
+            throw new IllegalArgumentException("Reserved element: " + x);
+        }
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & mask;
+    }
+
+    private boolean acquire(int n) {
+        int start = stripe();
+        int taken = 0;
+        for (int i = 0; i <= mask && taken < n; i++) {
+            int index = ((start + i) & mask) * PADDING;
+            while (true) {
+                int available = permits.get(index);
+                if (available == 0) {
+                    break;
+                }
+                int m = Math.min(available, n - taken);
+                if (permits.compareAndSet(index, available, available - m)) {
+                    taken += m;
+                    break;
+                }
+            }
+        }
+        if (taken < n) {
+            if (taken > 0) {
+                release(taken);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private void release(int n) {
+        permits.getAndAdd(stripe() * PADDING, n);
+    }
+}
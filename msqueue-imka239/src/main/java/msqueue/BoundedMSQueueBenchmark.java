@@ -0,0 +1,68 @@
+package msqueue;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link BoundedMSQueue} filled up to {@code fill} percent of its capacity,
+ * so that with {@code fill} close to 100 a good share of the offers fail.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BoundedMSQueueBenchmark {
+    @Param({"1", "10", "50", "100"})
+    public int work = 0;
+
+    @Param({"1024"})
+    public int capacity;
+
+    @Param({"50", "90", "100"})
+    public int fill;
+
+    private BoundedMSQueue s;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        s = new BoundedMSQueue(capacity);
+        for (int i = 0; i < (long) capacity * fill / 100; i++) {
+            s.offer(i);
+        }
+    }
+
+    @Group("queue")
+    @Benchmark
+    public boolean offer() {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        return s.offer(r.nextInt(Integer.MAX_VALUE));
+    }
+
+    @Group("queue")
+    @Benchmark
+    public int pop() {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        return s.dequeue();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(BoundedMSQueueBenchmark.class.getSimpleName())
+                .forks(1)
+                .threads(4)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,75 @@
+package msqueue;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * What a thread does after a failed CAS before it retries.
+ * <p>
+ * The strategy keeps no state of its own: a retry loop starts with attempt 0
+ * and passes the value returned by {@link #backoff(int)} to the next call.
+ */
+public enum ContentionStrategy {
+    /**
+     * Retry immediately.
+     */
+    NONE {
+        @Override
+        public int backoff(int attempt) {
+            return attempt;
+        }
+    },
+
+    /**
+     * Spin for {@code MIN_DELAY * 2^attempt} iterations, at most {@code MAX_DELAY}.
+     */
+    EXPONENTIAL_BACKOFF {
+        @Override
+        public int backoff(int attempt) {
+            spin(delay(attempt));
+            return attempt + 1;
+        }
+    },
+
+    /**
+     * Spin for a random number of iterations below the delay of {@link #EXPONENTIAL_BACKOFF},
+     * so that the threads which failed together do not retry together.
+     */
+    RANDOMIZED_BACKOFF {
+        @Override
+        public int backoff(int attempt) {
+            spin(ThreadLocalRandom.current().nextInt(delay(attempt)) + 1);
+            return attempt + 1;
+        }
+    };
+
+    private static final int MIN_DELAY = 16;
+    private static final int MAX_DELAY = 4096;
+    private static final int MAX_SHIFT = Integer.numberOfTrailingZeros(MAX_DELAY / MIN_DELAY);
+
+    private static volatile int sink;
+
+    /**
+     * Waits after the failure of the given attempt.
+     *
+     * @param attempt the number of failures in the current retry loop so far
+     * @return the value to pass on the next failure
+     */
+    public abstract int backoff(int attempt);
+
+    private static int delay(int attempt) {
+        return MIN_DELAY << Math.min(attempt, MAX_SHIFT);
+    }
+
+    private static void spin(int iterations) {
+        int seed = iterations;
+        for (int i = 0; i < iterations; i++) {
+            seed ^= seed << 13;
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+        }
+        // never true, but keeps the loop from being optimized away
+        if (seed == 0) {
+            sink = seed;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package msqueue;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * {@link MSQueue} whose elements survive a restart of the process.
+ * <p>
+ * The journal is a memory-mapped pool of {@code capacity} fixed-size records rather than
+ * a log. Every enqueued element is written to a free record together with a sequence
+ * number which orders the elements; the in-memory queue holds record indices only.
+ * A dequeue marks the record as consumed and returns it to the pool of free records,
+ * so the journal never holds more than the elements currently in the queue. Since
+ * the live records are scattered over the pool, there is no consumed prefix to skip:
+ * opening reads all the records, sorts the unconsumed ones by their sequence numbers
+ * and compacts them into a new journal, in O(capacity log capacity) time however many
+ * elements have ever been enqueued.
+ * <p>
+ * An enqueue returns only after its record has been forced to the storage device.
+ * The journal is forced by one thread at a time on behalf of all the enqueuers which
+ * have written their records before the force started (group commit), so under load
+ * a single force covers many elements. Dequeues are not forced individually: the
+ * consumed marks are forced every {@value #SYNC_PERIOD} dequeues or by
+ * {@link #syncDequeues()}, so after a crash up to {@value #SYNC_PERIOD} already
+ * dequeued elements may be delivered again.
+ * <p>
+ * An enqueue takes its sequence number before the force and appends the record to the
+ * in-memory queue after it, so two enqueues which overlap in time may be recovered in
+ * the opposite order to the one the in-memory queue had. The recovered order is the
+ * same for enqueues which do not overlap, i.e. when one returns before the other starts;
+ * overlapping enqueues may be linearized in either order anyway.
+ */
+public class DurableMSQueue implements Queue, Closeable {
+    private static final int SYNC_PERIOD = 1024;
+
+    // record layout: state, value, sequence number
+    private static final int RECORD_SIZE = 16;
+    private static final int VALUE_OFFSET = 4;
+    private static final int SEQ_OFFSET = 8;
+
+    // record states, a record which has never been written reads as neither
+    private static final int FULL = 1;
+    private static final int CONSUMED = 2;
+
+    private static final AtomicIntegerFieldUpdater<DurableMSQueue> FRESH =
+            AtomicIntegerFieldUpdater.newUpdater(DurableMSQueue.class, "fresh");
+    private static final AtomicLongFieldUpdater<DurableMSQueue> NEXT_SEQ =
+            AtomicLongFieldUpdater.newUpdater(DurableMSQueue.class, "nextSeq");
+    private static final AtomicLongFieldUpdater<DurableMSQueue> DEQUEUED =
+            AtomicLongFieldUpdater.newUpdater(DurableMSQueue.class, "dequeued");
+
+    private final MSQueue queue = new MSQueue();
+    private final MSQueue freeRecords = new MSQueue(); // released by the dequeues
+    private final int capacity;
+    private final RandomAccessFile journalFile;
+    private final MappedByteBuffer journal;
+    private final Object forceLock = new Object();
+
+    private volatile int fresh; // the records from this one on have not been used since opening
+    private volatile long nextSeq; // sequence number of the next enqueued element
+    private volatile long forceEpoch; // number of started forces
+    private volatile long forcedEpoch; // number of completed forces
+    private volatile long dequeued;
+
+    /**
+     * Opens the queue stored in the given directory, or creates an empty one.
+     *
+     * @param dir the directory with the journal file
+     * @param capacity the maximum number of elements in the queue, including the ones
+     *                 recovered from the journal
+     * @throws IOException if the files cannot be read or written
+     */
+    public DurableMSQueue(File dir, int capacity) throws IOException {
+        if (capacity <= 0 || capacity > Integer.MAX_VALUE / RECORD_SIZE) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create directory " + dir);
+        }
+        File journalPath = new File(dir, "journal");
+        int[] values = journalPath.exists() ? replay(journalPath) : new int[0];
+        int size = values.length;
+        if (size > capacity) {
+            throw new IllegalArgumentException("Journal holds " + size + " elements, capacity is " + capacity);
+        }
+        this.capacity = capacity;
+        File tmpPath = new File(dir, "journal.tmp");
+        try (RandomAccessFile tmp = new RandomAccessFile(tmpPath, "rw")) {
+            ByteBuffer buf = ByteBuffer.allocate(size * RECORD_SIZE);
+            for (int i = 0; i < size; i++) {
+                buf.putInt(i * RECORD_SIZE, FULL);
+                buf.putInt(i * RECORD_SIZE + VALUE_OFFSET, values[i]);
+                buf.putLong(i * RECORD_SIZE + SEQ_OFFSET, i);
+            }
+            tmp.setLength(0);
+            tmp.getChannel().write(buf, 0);
+            tmp.getChannel().force(true);
+        }
+        Files.move(tmpPath.toPath(), journalPath.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // the rename is durable only once the directory is, and no element may be enqueued before
+        try (FileChannel d = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            d.force(true);
+        }
+
+        this.journalFile = new RandomAccessFile(journalPath, "rw");
+        try {
+            this.journal = journalFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                    (long) capacity * RECORD_SIZE);
+        } catch (IOException | RuntimeException e) {
+            journalFile.close();
+            throw e;
+        }
+        for (int record = 0; record < size; record++) {
+            queue.enqueue(record);
+        }
+        this.fresh = size;
+        this.nextSeq = size;
+    }
+
+    /**
+     * Returns once the element is durable. Its sequence number is taken before the force,
+     * so an enqueue which overlaps with this one may precede it in memory and follow it
+     * after recovery.
+     */
+    @Override
+    public void enqueue(int x) {
+        int record = allocate();
+        write(record, NEXT_SEQ.getAndIncrement(this), x);
+        awaitForce();
+        queue.enqueue(record);
+    }
+
+    @Override
+    public void enqueueAll(int[] xs, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int[] records = new int[to - from];
+        for (int i = 0; i < records.length; i++) {
+            try {
+                records[i] = allocate();
+            } catch (IllegalStateException e) {
+                for (int j = 0; j < i; j++) {
+                    freeRecords.enqueue(records[j]);
+                }
+                throw e;
+            }
+        }
+        long first = NEXT_SEQ.getAndAdd(this, records.length);
+        for (int i = 0; i < records.length; i++) {
+            write(records[i], first + i, xs[from + i]);
+        }
+        awaitForce();
+        queue.enqueueAll(records, 0, records.length);
+    }
+
+    @Override
+    public int dequeue() {
+        int record = queue.dequeue();
+        if (record == Integer.MIN_VALUE) {
+            return Integer.MIN_VALUE;
+        }
+        int x = consume(record);
+        onDequeued(1);
+        return x;
+    }
+
+    /**
+     * Reads the value and checks that the record is still at the head, since a dequeued
+     * record may be reused by an enqueue.
+     */
+    @Override
+    public int peek() {
+        while (true) {
+            int record = queue.peek();
+            if (record == Integer.MIN_VALUE) {
+                return Integer.MIN_VALUE;
+            }
+            int x = journal.getInt(recordOffset(record) + VALUE_OFFSET);
+            if (queue.peek() == record) {
+                return x;
+            }
+        }
+    }
+
+    @Override
+    public int drainTo(int[] dst, int max) {
+        int count = queue.drainTo(dst, max);
+        for (int i = 0; i < count; i++) {
+            dst[i] = consume(dst[i]);
+        }
+        if (count > 0) {
+            onDequeued(count);
+        }
+        return count;
+    }
+
+    /**
+     * Forces the consumed marks to the device, so that the dequeued elements
+     * are not replayed when the queue is reopened.
+     */
+    public void syncDequeues() {
+        force();
+    }
+
+    /**
+     * Saves the dequeue progress and closes the journal. The queue must not be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        syncDequeues();
+        journalFile.close();
+    }
+
+    /**
+     * Takes a released record, or one which has not been used yet.
+     *
+     * @throws IllegalStateException if the queue holds {@code capacity} elements
+     */
+    private int allocate() {
+        int record = freeRecords.dequeue();
+        if (record != Integer.MIN_VALUE) {
+            return record;
+        }
+        while (true) {
+            int f = fresh;
+            if (f == capacity) {
+                // a record may have been released meanwhile
+                record = freeRecords.dequeue();
+                if (record != Integer.MIN_VALUE) {
+                    return record;
+                }
+                throw new IllegalStateException("Queue is full");
+            }
+            if (FRESH.compareAndSet(this, f, f + 1)) {
+                return f;
+            }
+        }
+    }
+
+    private void write(int record, long seq, int x) {
+        int offset = recordOffset(record);
+        journal.putInt(offset + VALUE_OFFSET, x);
+        journal.putLong(offset + SEQ_OFFSET, seq);
+        journal.putInt(offset, FULL);
+    }
+
+    private int consume(int record) {
+        int offset = recordOffset(record);
+        int x = journal.getInt(offset + VALUE_OFFSET);
+        journal.putInt(offset, CONSUMED);
+        freeRecords.enqueue(record);
+        return x;
+    }
+
+    private void onDequeued(int n) {
+        long before = DEQUEUED.getAndAdd(this, n);
+        if (before / SYNC_PERIOD != (before + n) / SYNC_PERIOD) {
+            syncDequeues();
+        }
+    }
+
+    /**
+     * Waits until the records written by the current thread so far are forced to the device.
+     */
+    private void awaitForce() {
+        // any force started after this read covers our records
+        long epoch = forceEpoch;
+        while (forcedEpoch <= epoch) {
+            synchronized (forceLock) {
+                if (forcedEpoch <= epoch) {
+                    force();
+                }
+            }
+        }
+    }
+
+    private void force() {
+        synchronized (forceLock) {
+            long epoch = forceEpoch + 1;
+            forceEpoch = epoch;
+            journal.force();
+            forcedEpoch = epoch;
+        }
+    }
+
+    private static int recordOffset(int record) {
+        return record * RECORD_SIZE;
+    }
+
+    /**
+     * Returns the values of the unconsumed records of the journal in the order of their
+     * sequence numbers.
+     */
+    private static int[] replay(File journalPath) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(journalPath, "r")) {
+            long length = file.length() / RECORD_SIZE * RECORD_SIZE;
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Journal is too long: " + file.length());
+            }
+            ByteBuffer records = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+            int size = 0;
+            for (int offset = 0; offset < length; offset += RECORD_SIZE) {
+                if (records.getInt(offset) == FULL) {
+                    size++;
+                }
+            }
+            long[] seqs = new long[size];
+            for (int offset = 0, i = 0; offset < length; offset += RECORD_SIZE) {
+                if (records.getInt(offset) == FULL) {
+                    seqs[i++] = records.getLong(offset + SEQ_OFFSET);
+                }
+            }
+            long[] sorted = seqs.clone();
+            Arrays.sort(sorted);
+            int[] values = new int[size];
+            for (int offset = 0, i = 0; offset < length; offset += RECORD_SIZE) {
+                if (records.getInt(offset) == FULL) {
+                    values[Arrays.binarySearch(sorted, seqs[i++])] = records.getInt(offset + VALUE_OFFSET);
+                }
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package msqueue;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link DurableMSQueue}; the more threads enqueue concurrently,
+ * the more elements share a single force of the journal.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DurableMSQueueBenchmark {
+    @Param({"1", "100"})
+    public int work = 0;
+
+    @Param({"1048576"})
+    public int capacity;
+
+    private File dir;
+    private DurableMSQueue s;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("journal").toFile();
+        s = new DurableMSQueue(dir, capacity);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        s.close();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.delete(file.toPath());
+            }
+        }
+        Files.delete(dir.toPath());
+    }
+
+    @Group("queue")
+    @Benchmark
+    public void push() {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        s.enqueue(r.nextInt());
+    }
+
+    @Group("queue")
+    @Benchmark
+    public int pop() {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        return s.dequeue();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(DurableMSQueueBenchmark.class.getSimpleName())
+                .forks(1)
+                // JMH orders the members of a group by name: one pop, four push threads
+                .threadGroups(1, 4)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,209 @@
+package msqueue;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Epoch-based reclamation of unlinked nodes, so that they can be reused
+ * instead of allocating new ones.
+ * <p>
+ * Every operation on the data structure must be enclosed in {@link #enter()} and
+ * {@link #exit(Record)}. A node passed to {@link #retire(Record, Object)} is returned by
+ * {@link #allocate(Record)} only after the global epoch has advanced twice, i.e. after
+ * every operation which could have read a reference to it has finished. Thus a node
+ * is never reused while another thread may still compare against it, which rules out
+ * the ABA problem.
+ * <p>
+ * Reclaimed nodes go to a per-thread free list. A thread which has too many free nodes
+ * hands a batch of them over to a shared pool, from which threads that only allocate
+ * (e.g. pure producers) take them. The emptied batches go back to the pool as well,
+ * so in the steady state neither path allocates.
+ * <p>
+ * The module {@code stack-elimination-imka239} keeps an identical copy of this class, on purpose:
+ * the modules are independent Maven projects without a shared library, so a fix to
+ * one copy has to go to the other as well.
+ */
+final class EpochReclaimer<N> {
+    private static final long QUIESCENT = -1;
+    private static final int ADVANCE_PERIOD = 64; // retires between attempts to advance the epoch
+    private static final int BATCH_SIZE = 256;
+    private static final int MAX_FREE = 4 * BATCH_SIZE;
+
+    private static final class Buffer {
+        Object[] items = new Object[16];
+        int size;
+
+        void add(Object x) {
+            if (size == items.length) {
+                Object[] newItems = new Object[2 * size];
+                System.arraycopy(items, 0, newItems, 0, size);
+                items = newItems;
+            }
+            items[size++] = x;
+        }
+
+        Object poll() {
+            if (size == 0) {
+                return null;
+            }
+            Object x = items[--size];
+            items[size] = null;
+            return x;
+        }
+    }
+
+    /**
+     * Per-thread state, returned by {@link #enter()}.
+     */
+    static final class Record {
+        volatile long epoch = QUIESCENT; // epoch of the current operation
+        final Record next;
+        final Buffer[] limbo = {new Buffer(), new Buffer(), new Buffer()};
+        final long[] limboEpochs = new long[3];
+        final Buffer free = new Buffer();
+        int retired;
+
+        Record(Record next) {
+            this.next = next;
+        }
+    }
+
+    private static final class Batch {
+        final Object[] nodes = new Object[BATCH_SIZE];
+        Batch next;
+    }
+
+    @SuppressWarnings("rawtypes") // a field updater of a generic class cannot be typed
+    private static final AtomicLongFieldUpdater<EpochReclaimer> EPOCH =
+            AtomicLongFieldUpdater.newUpdater(EpochReclaimer.class, "epoch");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<EpochReclaimer, Record> RECORDS =
+            AtomicReferenceFieldUpdater.newUpdater(EpochReclaimer.class, Record.class, "records");
+
+    private volatile long epoch;
+    private volatile Record records;
+    private final Object poolLock = new Object();
+    private Batch fullBatches; // guarded by poolLock
+    private Batch emptyBatches; // guarded by poolLock
+
+    private final ThreadLocal<Record> record = new ThreadLocal<Record>() {
+        @Override
+        protected Record initialValue() {
+            while (true) {
+                Record curHead = records;
+                Record r = new Record(curHead);
+                if (RECORDS.compareAndSet(EpochReclaimer.this, curHead, r)) {
+                    return r;
+                }
+            }
+        }
+    };
+
+    /**
+     * Marks the beginning of an operation of the current thread.
+     */
+    Record enter() {
+        Record r = record.get();
+        r.epoch = epoch;
+        return r;
+    }
+
+    /**
+     * Marks the end of the operation started by {@link #enter()}.
+     */
+    void exit(Record r) {
+        r.epoch = QUIESCENT;
+    }
+
+    /**
+     * Returns a node which is not referenced by any other thread,
+     * or {@code null} if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    N allocate(Record r) {
+        Object node = r.free.poll();
+        if (node == null) {
+            Batch batch = takeBatch(true);
+            if (batch != null) {
+                Object[] nodes = batch.nodes;
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    r.free.add(nodes[i]);
+                    nodes[i] = null;
+                }
+                putBatch(batch, false);
+                node = r.free.poll();
+            }
+        }
+        return (N) node;
+    }
+
+    /**
+     * Passes the node which has just been unlinked from the data structure for reuse.
+     */
+    void retire(Record r, N node) {
+        long e = epoch;
+        for (int i = 0; i < 3; i++) {
+            Buffer limbo = r.limbo[i];
+            if (limbo.size > 0 && r.limboEpochs[i] <= e - 2) {
+                Object x;
+                while ((x = limbo.poll()) != null) {
+                    r.free.add(x);
+                }
+            }
+        }
+        int i = (int) (e % 3);
+        r.limboEpochs[i] = e;
+        r.limbo[i].add(node);
+        if (++r.retired % ADVANCE_PERIOD == 0) {
+            tryAdvance(e);
+        }
+        if (r.free.size > MAX_FREE) {
+            Batch batch = takeBatch(false);
+            if (batch == null) {
+                batch = new Batch();
+            }
+            for (int j = 0; j < BATCH_SIZE; j++) {
+                batch.nodes[j] = r.free.poll();
+            }
+            putBatch(batch, true);
+        }
+    }
+
+    private void tryAdvance(long e) {
+        for (Record r = records; r != null; r = r.next) {
+            long cur = r.epoch;
+            if (cur != QUIESCENT && cur != e) {
+                return;
+            }
+        }
+        EPOCH.compareAndSet(this, e, e + 1);
+    }
+
+    // batches move rarely, so a lock is cheap here and rules out the ABA problem of reused batches
+    private void putBatch(Batch batch, boolean full) {
+        synchronized (poolLock) {
+            if (full) {
+                batch.next = fullBatches;
+                fullBatches = batch;
+            } else {
+                batch.next = emptyBatches;
+                emptyBatches = batch;
+            }
+        }
+    }
+
+    private Batch takeBatch(boolean full) {
+        synchronized (poolLock) {
+            Batch batch = full ? fullBatches : emptyBatches;
+            if (batch != null) {
+                if (full) {
+                    fullBatches = batch.next;
+                } else {
+                    emptyBatches = batch.next;
+                }
+                batch.next = null;
+            }
+            return batch;
+        }
+    }
+}
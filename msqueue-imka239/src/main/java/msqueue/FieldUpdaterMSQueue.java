@@ -0,0 +1,147 @@
+package msqueue;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Michael-Scott queue which keeps {@code next}, {@code head} and {@code tail}
+ * as plain volatile fields updated through {@link AtomicReferenceFieldUpdater}s.
+ * Unlike {@link MSQueue}, an enqueue allocates exactly one object and
+ * a traversal step is a single pointer dereference.
+ */
+public class FieldUpdaterMSQueue implements Queue {
+    private static class Node {
+        final int x;
+        volatile Node next;
+
+        Node(int x, Node next) {
+            this.next = next;
+            this.x = x;
+        }
+    }
+
+    private static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+    private static final AtomicReferenceFieldUpdater<FieldUpdaterMSQueue, Node> HEAD =
+            AtomicReferenceFieldUpdater.newUpdater(FieldUpdaterMSQueue.class, Node.class, "head");
+    private static final AtomicReferenceFieldUpdater<FieldUpdaterMSQueue, Node> TAIL =
+            AtomicReferenceFieldUpdater.newUpdater(FieldUpdaterMSQueue.class, Node.class, "tail");
+
+    private volatile Node head;
+    private volatile Node tail;
+
+    public FieldUpdaterMSQueue() {
+        Node dummy = new Node(0, null);
+        this.head = dummy;
+        this.tail = dummy;
+    }
+
+    @Override
+    public void enqueue(int x) {
+        Node newTail = new Node(x, null);
+        while (true) {
+            goMyTail();
+            Node val = tail;
+            if (NEXT.compareAndSet(val, null, newTail)) {
+                TAIL.compareAndSet(this, val, newTail);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void enqueueAll(int[] xs, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        Node last = new Node(xs[to - 1], null);
+        Node first = last;
+        for (int i = to - 2; i >= from; i--) {
+            first = new Node(xs[i], first);
+        }
+        while (true) {
+            goMyTail();
+            Node val = tail;
+            if (NEXT.compareAndSet(val, null, first)) {
+                TAIL.compareAndSet(this, val, last);
+                return;
+            }
+        }
+    }
+
+    private void goMyTail() {
+        Node val = tail;
+        Node nextVal = val.next;
+        while (nextVal != null) {
+            TAIL.compareAndSet(this, val, nextVal);
+            val = tail;
+            nextVal = val.next;
+        }
+    }
+
+    @Override
+    public int dequeue() {
+        while (true) {
+            Node curHead = head;
+            Node curTail = tail;
+            Node nextHead = curHead.next;
+            // plain re-read instead of a validating CAS: curHead, curTail and nextHead were consistent
+            if (curHead != head) {
+                continue;
+            }
+            if (nextHead == null) {
+                return Integer.MIN_VALUE;
+            }
+            if (curHead == curTail) {
+                TAIL.compareAndSet(this, curTail, nextHead);
+                continue;
+            }
+            if (HEAD.compareAndSet(this, curHead, nextHead)) {
+                return nextHead.x;
+            }
+        }
+    }
+
+    @Override
+    public int peek() {
+        while (true) {
+            Node curHead = head;
+            Node nextHead = curHead.next;
+            if (nextHead == null) {
+                if (curHead == head) {
+                    return Integer.MIN_VALUE;
+                }
+                continue;
+            }
+            int x = nextHead.x;
+            if (curHead == head) {
+                return x;
+            }
+        }
+    }
+
+    @Override
+    public int drainTo(int[] dst, int max) {
+        max = Math.min(max, dst.length);
+        if (max <= 0) {
+            return 0;
+        }
+        while (true) {
+            Node curHead = head;
+            Node last = curHead;
+            Node next = curHead.next;
+            int count = 0;
+            while (count < max && next != null) {
+                dst[count++] = next.x;
+                last = next;
+                next = next.next;
+            }
+            if (count == 0) {
+                return 0;
+            }
+            goMyTail();
+            if (HEAD.compareAndSet(this, curHead, last)) {
+                return count;
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package msqueue;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Multi-producer single-consumer queue.
+ * <p>
+ * A producer swaps its node into {@code tail} with a single atomic exchange and then
+ * links the previous tail to it, so producers never retry. {@link #dequeue()},
+ * {@link #peek()} and {@link #drainTo(int[], int)} must be called by one thread at a time;
+ * they advance {@code head} with plain writes.
+ * <p>
+ * The queue is not linearizable: while a producer is between the exchange and the link,
+ * the elements enqueued after it are not visible to the consumer, which may thus
+ * report the queue as empty although a later enqueue has already completed.
+ */
+public class MPSCQueue implements Queue {
+    private static class Node {
+        final int x;
+        volatile Node next;
+
+        Node(int x) {
+            this.x = x;
+        }
+    }
+
+    private static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+    private static final AtomicReferenceFieldUpdater<MPSCQueue, Node> TAIL =
+            AtomicReferenceFieldUpdater.newUpdater(MPSCQueue.class, Node.class, "tail");
+
+    private Node head; // accessed by the consumer only
+    private volatile Node tail;
+
+    public MPSCQueue() {
+        Node dummy = new Node(0);
+        this.head = dummy;
+        this.tail = dummy;
+    }
+
+    @Override
+    public void enqueue(int x) {
+        Node node = new Node(x);
+        Node prev = TAIL.getAndSet(this, node);
+        NEXT.lazySet(prev, node);
+    }
+
+    @Override
+    public void enqueueAll(int[] xs, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        Node first = new Node(xs[from]);
+        Node last = first;
+        for (int i = from + 1; i < to; i++) {
+            Node node = new Node(xs[i]);
+            last.next = node;
+            last = node;
+        }
+        Node prev = TAIL.getAndSet(this, last);
+        NEXT.lazySet(prev, first);
+    }
+
+    @Override
+    public int dequeue() {
+        Node next = head.next;
+        if (next == null) {
+            return Integer.MIN_VALUE;
+        }
+        head = next;
+        return next.x;
+    }
+
+    @Override
+    public int peek() {
+        Node next = head.next;
+        return next == null ? Integer.MIN_VALUE : next.x;
+    }
+
+    @Override
+    public int drainTo(int[] dst, int max) {
+        max = Math.min(max, dst.length);
+        Node last = head;
+        int count = 0;
+        Node next;
+        while (count < max && (next = last.next) != null) {
+            dst[count++] = next.x;
+            last = next;
+        }
+        head = last;
+        return count;
+    }
+}
@@ -0,0 +1,87 @@
+package msqueue;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One consumer against several producers. Unlike {@link MSQueueBenchmark} no group
+ * runs more than one consumer, so {@link MPSCQueue} can be measured as well.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MPSCQueueBenchmark {
+    @Param({"1", "10", "50", "100"})
+    public int work = 0;
+
+    @Param({"MPSCQueue", "MSQueue", "ConcurrentLinkedQueue"})
+    public String queue;
+
+    private Queue s;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (queue) {
+        case "MPSCQueue":
+            s = new MPSCQueue();
+            break;
+        case "MSQueue":
+            s = new MSQueue();
+            break;
+        case "ConcurrentLinkedQueue":
+            s = new MSQueueBenchmark.JdkQueue(new ConcurrentLinkedQueue<Integer>());
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown queue: " + queue);
+        }
+    }
+
+    @Group("mpsc")
+    @GroupThreads(3)
+    @Benchmark
+    public void push() {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        s.enqueue(r.nextInt());
+    }
+
+    @Group("mpsc")
+    @GroupThreads(1)
+    @Benchmark
+    public int pop() {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        return s.dequeue();
+    }
+
+    /**
+     * Runs the benchmark with one consumer and 1, 2, 4, ... producers,
+     * up to the number of available processors minus one.
+     */
+    public static void main(String[] args) throws RunnerException {
+        int producers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        for (int n = 1; n <= producers; n = n < producers ? Math.min(2 * n, producers) : n + 1) {
+            Options opt = new OptionsBuilder()
+                    .include(MPSCQueueBenchmark.class.getSimpleName())
+                    .forks(1)
+                    // JMH orders the members of a group by name: pop, then push
+                    .threadGroups(1, n)
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            new Runner(opt).run();
+        }
+    }
+}
@@ -2,9 +2,11 @@ package msqueue;
 
 import kotlinx.atomicfu.AtomicRef;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 public class MSQueue implements Queue {
     private class Node {
-        final int x;
+        int x;
         AtomicRef<Node> next;
 
         Node(int x, Node next) {
@@ -13,89 +15,214 @@ public class MSQueue implements Queue {
         }
     }
 
-    private AtomicRef<Node> head;
-    private AtomicRef<Node> tail;
+    /**
+     * Reference padded to the size of a cache line, so that an update of
+     * {@link #head} does not invalidate the cached {@link #tail} and vice versa.
+     */
+    private static class PaddedRef<T> extends AtomicReference<T> {
+        private static final long serialVersionUID = 1L;
+
+        long p1, p2, p3, p4, p5, p6, p7;
+
+        PaddedRef(T value) {
+            super(value);
+        }
+    }
+
+    private final PaddedRef<Node> head;
+    private final PaddedRef<Node> tail;
+    private final EpochReclaimer<Node> reclaimer;
+    private final ContentionStrategy contention;
 
     public MSQueue() {
+        this(false);
+    }
+
+    /**
+     * @param recycleNodes whether nodes removed from the queue should be
+     *                     reused by subsequent enqueues, see {@link EpochReclaimer}
+     */
+    public MSQueue(boolean recycleNodes) {
+        this(recycleNodes, ContentionStrategy.NONE);
+    }
+
+    /**
+     * @param recycleNodes whether nodes removed from the queue should be
+     *                     reused by subsequent enqueues, see {@link EpochReclaimer}
+     * @param contention what to do after a failed CAS on {@code head} or {@code tail.next}
+     */
+    public MSQueue(boolean recycleNodes, ContentionStrategy contention) {
         Node dummy = new Node(0, null);
-        this.head = new AtomicRef<>(dummy);
-        this.tail = new AtomicRef<>(dummy);
+        this.head = new PaddedRef<>(dummy);
+        this.tail = new PaddedRef<>(dummy);
+        this.reclaimer = recycleNodes ? new EpochReclaimer<Node>() : null;
+        this.contention = contention;
     }
 
     @Override
     public void enqueue(int x) {
-        Node newTail = new Node(x, null);
-        while (true) {
-            goMyTail();
-            Node val = tail.getValue();
-            if (val.next.compareAndSet(null, newTail)) {
-                tail.compareAndSet(val, newTail);
-                return;
+        EpochReclaimer.Record r = enter();
+        try {
+            Node newTail = newNode(r, x, null);
+            for (int attempt = 0; ; attempt = contention.backoff(attempt)) {
+                goMyTail();
+                Node val = tail.get();
+                if (val.next.compareAndSet(null, newTail)) {
+                    tail.compareAndSet(val, newTail);
+                    return;
+                }
+            }
+        } finally {
+            exit(r);
+        }
+    }
+
+    @Override
+    public void enqueueAll(int[] xs, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        EpochReclaimer.Record r = enter();
+        try {
+            Node last = newNode(r, xs[to - 1], null);
+            Node first = last;
+            for (int i = to - 2; i >= from; i--) {
+                first = newNode(r, xs[i], first);
+            }
+            for (int attempt = 0; ; attempt = contention.backoff(attempt)) {
+                goMyTail();
+                Node val = tail.get();
+                if (val.next.compareAndSet(null, first)) {
+                    tail.compareAndSet(val, last);
+                    return;
+                }
             }
+        } finally {
+            exit(r);
         }
     }
 
     private void goMyTail() {
-        Node val = tail.getValue();
+        Node val = tail.get();
         Node nextVal = val.next.getValue();
         while (nextVal != null) {
-            tail.compareAndSet(val, val.next.getValue());
-            val = tail.getValue();
+            tail.compareAndSet(val, nextVal);
+            val = tail.get();
             nextVal = val.next.getValue();
         }
     }
 
     @Override
     public int dequeue() {
-        while (true) {
-            Node curHead = head.getValue();
-            goMyTail();
-            Node curTail = tail.getValue();
-            if (tail.compareAndSet(curTail, curTail)) {
-                if (head.compareAndSet(curHead, curHead)) {
-                    if (curHead == curTail) {
-                        return Integer.MIN_VALUE;
-                    }
-                } else {
+        EpochReclaimer.Record r = enter();
+        try {
+            for (int attempt = 0; ; attempt = contention.backoff(attempt)) {
+                Node curHead = head.get();
+                Node curTail = tail.get();
+                Node nextHead = curHead.next.getValue();
+                // plain re-read instead of a validating CAS: curHead, curTail and nextHead were consistent
+                if (curHead != head.get()) {
                     continue;
                 }
-            } else {
-                continue;
-            }
-            Node nextHead = curHead.next.getValue();
-            if (head.compareAndSet(curHead, nextHead)) {
                 if (nextHead == null) {
                     return Integer.MIN_VALUE;
                 }
-                return nextHead.x;
+                if (curHead == curTail) {
+                    tail.compareAndSet(curTail, nextHead);
+                    continue;
+                }
+                if (head.compareAndSet(curHead, nextHead)) {
+                    retire(r, curHead);
+                    return nextHead.x;
+                }
             }
+        } finally {
+            exit(r);
         }
     }
 
     @Override
     public int peek() {
-        while (true) {
-            Node curHead = head.getValue();
-            Node nextHead = curHead.next.getValue();
-            goMyTail();
-            Node curTail = tail.getValue();
-            if (tail.compareAndSet(curTail, curTail)) {
-                if (head.compareAndSet(curHead, curHead)) {
-                    if (curHead == curTail) {
+        EpochReclaimer.Record r = enter();
+        try {
+            while (true) {
+                Node curHead = head.get();
+                Node nextHead = curHead.next.getValue();
+                if (nextHead == null) {
+                    if (curHead == head.get()) {
                         return Integer.MIN_VALUE;
                     }
-                } else {
                     continue;
                 }
-            } else {
-                continue;
+                int x = nextHead.x;
+                if (curHead == head.get()) {
+                    return x;
+                }
             }
-            if (head.compareAndSet(curHead, curHead)) {
-                if (nextHead == null) {
-                    return Integer.MIN_VALUE;
+        } finally {
+            exit(r);
+        }
+    }
+
+    @Override
+    public int drainTo(int[] dst, int max) {
+        max = Math.min(max, dst.length);
+        if (max <= 0) {
+            return 0;
+        }
+        EpochReclaimer.Record r = enter();
+        try {
+            for (int attempt = 0; ; attempt = contention.backoff(attempt)) {
+                Node curHead = head.get();
+                Node last = curHead;
+                Node next = curHead.next.getValue();
+                int count = 0;
+                while (count < max && next != null) {
+                    dst[count++] = next.x;
+                    last = next;
+                    next = next.next.getValue();
+                }
+                if (count == 0) {
+                    return 0;
+                }
+                goMyTail();
+                if (head.compareAndSet(curHead, last)) {
+                    for (Node node = curHead; node != last; ) {
+                        Node nextNode = node.next.getValue();
+                        retire(r, node);
+                        node = nextNode;
+                    }
+                    return count;
                 }
-                return nextHead.x;
             }
+        } finally {
+            exit(r);
+        }
+    }
+
+    private EpochReclaimer.Record enter() {
+        return reclaimer != null ? reclaimer.enter() : null;
+    }
+
+    private void exit(EpochReclaimer.Record r) {
+        if (r != null) {
+            reclaimer.exit(r);
+        }
+    }
+
+    private Node newNode(EpochReclaimer.Record r, int x, Node next) {
+        Node node = r != null ? reclaimer.allocate(r) : null;
+        if (node == null) {
+            return new Node(x, next);
+        }
+        node.x = x;
+        node.next.setValue(next);
+        return node;
+    }
+
+    private void retire(EpochReclaimer.Record r, Node node) {
+        if (r != null) {
+            reclaimer.retire(r, node);
         }
     }
-}
\ No newline at end of file
+}
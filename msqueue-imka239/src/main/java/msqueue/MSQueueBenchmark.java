@@ -2,50 +2,267 @@ package msqueue;
 
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 
 import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
-@OutputTimeUnit(TimeUnit.NANOSECONDS)
+/**
+ * Queue benchmark suite.
+ * <p>
+ * Groups {@code spmc}, {@code mpsc} and {@code mpmc} run producers and consumers in
+ * the ratios 1:3, 3:1 and 2:2; {@link #main(String[])} sweeps the thread count up to
+ * the number of available processors instead. {@code ConcurrentLinkedQueue} and
+ * {@code ArrayBlockingQueue} are measured under the same workload as baselines; the
+ * producers wait for room in the latter rather than count the rejected offers.
+ * The contention strategies of {@link MSQueue} are compared by
+ * {@link MSQueueContentionBenchmark}.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
 @Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
 @Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
-@BenchmarkMode(Mode.AverageTime)
+@BenchmarkMode(Mode.Throughput)
 @Fork(1)
 @State(Scope.Benchmark)
 public class MSQueueBenchmark {
+    private static final int ARRAY_BLOCKING_QUEUE_CAPACITY = 1 << 16;
+
     @Param({"1", "10", "50", "100"})
     public int work = 0;
 
-    private final Queue s = new MSQueue();
+    @Param({"MSQueue", "RecyclingMSQueue", "FieldUpdaterMSQueue", "SegmentQueue",
+            "ConcurrentLinkedQueue", "ArrayBlockingQueue"})
+    public String queue;
+
+    @Param({"16"})
+    public int batch;
+
+    private Queue s;
+    private ArrayBlockingQueue<Integer> bounded; // the same queue as s if it is bounded
+
+    @State(Scope.Thread)
+    public static class Buffer {
+        int[] xs;
+
+        @Setup(Level.Trial)
+        public void setUp(MSQueueBenchmark benchmark) {
+            xs = new int[benchmark.batch];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (queue) {
+        case "MSQueue":
+            s = new MSQueue();
+            break;
+        case "RecyclingMSQueue":
+            s = new MSQueue(true);
+            break;
+        case "FieldUpdaterMSQueue":
+            s = new FieldUpdaterMSQueue();
+            break;
+        case "SegmentQueue":
+            s = new SegmentQueue();
+            break;
+        case "ConcurrentLinkedQueue":
+            s = new JdkQueue(new ConcurrentLinkedQueue<Integer>());
+            break;
+        case "ArrayBlockingQueue":
+            bounded = new ArrayBlockingQueue<>(ARRAY_BLOCKING_QUEUE_CAPACITY);
+            s = new JdkQueue(bounded);
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown queue: " + queue);
+        }
+    }
 
     @Group("queue")
     @Benchmark
-    public void push() {
-        Random r = ThreadLocalRandom.current();
-        Blackhole.consumeCPU(r.nextInt(work));
-        s.enqueue(r.nextInt());
+    public void push(Control control) {
+        produce(control);
     }
 
     @Group("queue")
     @Benchmark
     public int pop() {
+        return consume();
+    }
+
+    @Group("spmc")
+    @GroupThreads(1)
+    @Benchmark
+    public void spmcPush(Control control) {
+        produce(control);
+    }
+
+    @Group("spmc")
+    @GroupThreads(3)
+    @Benchmark
+    public int spmcPop() {
+        return consume();
+    }
+
+    @Group("mpsc")
+    @GroupThreads(3)
+    @Benchmark
+    public void mpscPush(Control control) {
+        produce(control);
+    }
+
+    @Group("mpsc")
+    @GroupThreads(1)
+    @Benchmark
+    public int mpscPop() {
+        return consume();
+    }
+
+    @Group("mpmc")
+    @GroupThreads(2)
+    @Benchmark
+    public void mpmcPush(Control control) {
+        produce(control);
+    }
+
+    @Group("mpmc")
+    @GroupThreads(2)
+    @Benchmark
+    public int mpmcPop() {
+        return consume();
+    }
+
+    private void produce(Control control) {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        enqueue(r.nextInt(), control);
+    }
+
+    /**
+     * Waits for room in a bounded queue, giving up only when the measurement is over,
+     * since the consumers may have stopped by then.
+     */
+    private void enqueue(int x, Control control) {
+        if (bounded == null) {
+            s.enqueue(x);
+            return;
+        }
+        while (!bounded.offer(x) && !control.stopMeasurement) {
+            Thread.yield();
+        }
+    }
+
+    private int consume() {
         Random r = ThreadLocalRandom.current();
         Blackhole.consumeCPU(r.nextInt(work));
         return s.dequeue();
     }
 
+    @Group("batch")
+    @Benchmark
+    public void pushAll(Buffer buffer, Control control) {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        int[] xs = buffer.xs;
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = r.nextInt();
+        }
+        if (bounded == null) {
+            s.enqueueAll(xs, 0, xs.length);
+            return;
+        }
+        for (int x : xs) {
+            enqueue(x, control);
+        }
+    }
 
+    @Group("batch")
+    @Benchmark
+    public int drain(Buffer buffer) {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        return s.drainTo(buffer.xs, buffer.xs.length);
+    }
+
+    /**
+     * Runs the {@code queue} group with 1:N-1, N-1:1 and N/2:N/2 producers and consumers
+     * for every N from 2 up to the number of available processors, doubling N.
+     */
     public static void main(String[] args) throws RunnerException {
-        Options opt = new OptionsBuilder()
-                .include(MSQueueBenchmark.class.getSimpleName())
-                .forks(1)
-                .threads(4) // CHANGE ME!
-                .build();
-        new Runner(opt).run();
+        int processors = Math.max(2, Runtime.getRuntime().availableProcessors());
+        for (int threads = 2; threads <= processors; threads = nextThreads(threads, processors)) {
+            // {producers, consumers}
+            int[][] ratios = threads == 2
+                    ? new int[][]{{1, 1}}
+                    : new int[][]{{1, threads - 1}, {threads - 1, 1}, {threads / 2, threads - threads / 2}};
+            for (int[] ratio : ratios) {
+                Options opt = new OptionsBuilder()
+                        .include("^" + MSQueueBenchmark.class.getName() + ".queue$")
+                        .forks(1)
+                        // JMH orders the members of a group by name: pop, then push
+                        .threadGroups(ratio[1], ratio[0])
+                        .addProfiler(GCProfiler.class)
+                        .build();
+                new Runner(opt).run();
+            }
+        }
+    }
+
+    private static int nextThreads(int threads, int processors) {
+        return threads < processors ? Math.min(2 * threads, processors) : threads + 1;
+    }
+
+    /**
+     * Adapter of a {@link java.util.Queue} for baseline measurements.
+     * Batch operations are not atomic, and enqueues into a full bounded queue throw.
+     */
+    static class JdkQueue implements Queue {
+        private final java.util.Queue<Integer> queue;
+
+        JdkQueue(java.util.Queue<Integer> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void enqueue(int x) {
+            queue.add(x);
+        }
+
+        @Override
+        public int dequeue() {
+            Integer x = queue.poll();
+            return x == null ? Integer.MIN_VALUE : x;
+        }
+
+        @Override
+        public int peek() {
+            Integer x = queue.peek();
+            return x == null ? Integer.MIN_VALUE : x;
+        }
+
+        @Override
+        public void enqueueAll(int[] xs, int from, int to) {
+            for (int i = from; i < to; i++) {
+                queue.add(xs[i]);
+            }
+        }
+
+        @Override
+        public int drainTo(int[] dst, int max) {
+            max = Math.min(max, dst.length);
+            int count = 0;
+            Integer x;
+            while (count < max && (x = queue.poll()) != null) {
+                dst[count++] = x;
+            }
+            return count;
+        }
     }
 }
@@ -0,0 +1,87 @@
+package msqueue;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MSQueue} under each {@link ContentionStrategy}: the {@code queue} group of
+ * {@link MSQueueBenchmark} with as many producers as consumers, for the queues which
+ * take a strategy only.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MSQueueContentionBenchmark {
+    @Param({"1", "100"})
+    public int work = 0;
+
+    @Param({"MSQueue", "RecyclingMSQueue"})
+    public String queue;
+
+    @Param({"NONE", "EXPONENTIAL_BACKOFF", "RANDOMIZED_BACKOFF"})
+    public ContentionStrategy contention;
+
+    private Queue s;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (queue) {
+        case "MSQueue":
+            s = new MSQueue(false, contention);
+            break;
+        case "RecyclingMSQueue":
+            s = new MSQueue(true, contention);
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown queue: " + queue);
+        }
+    }
+
+    @Group("queue")
+    @Benchmark
+    public void push() {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        s.enqueue(r.nextInt());
+    }
+
+    @Group("queue")
+    @Benchmark
+    public int pop() {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        return s.dequeue();
+    }
+
+    /**
+     * Runs N/2 producers and N - N/2 consumers for every N from 2 up to the number of
+     * available processors, doubling N.
+     */
+    public static void main(String[] args) throws RunnerException {
+        int processors = Math.max(2, Runtime.getRuntime().availableProcessors());
+        for (int threads = 2; threads <= processors; threads = nextThreads(threads, processors)) {
+            Options opt = new OptionsBuilder()
+                    .include("^" + MSQueueContentionBenchmark.class.getName() + ".")
+                    .forks(1)
+                    // JMH orders the members of a group by name: pop, then push
+                    .threadGroups(threads - threads / 2, threads / 2)
+                    .build();
+            new Runner(opt).run();
+        }
+    }
+
+    private static int nextThreads(int threads, int processors) {
+        return threads < processors ? Math.min(2 * threads, processors) : threads + 1;
+    }
+}
@@ -25,4 +25,25 @@ public interface Queue {
      * or returns {@link Integer#MIN_VALUE} if this queue is empty
      */
     int peek();
+
+    /**
+     * Inserts elements {@code xs[from]}, ..., {@code xs[to - 1]} into this queue
+     * as a single atomic step, so that they appear consecutively and in order
+     *
+     * @param xs the array with elements to add
+     * @param from the index of the first element to add, inclusive
+     * @param to the index of the last element to add, exclusive
+     */
+    void enqueueAll(int[] xs, int from, int to);
+
+    /**
+     * Retrieves and removes at most {@code max} elements from the head of this queue
+     * as a single atomic step and stores them into {@code dst} starting at index 0.
+     * At least one element is removed unless this queue is empty
+     *
+     * @param dst the array to store the removed elements into
+     * @param max the maximum number of elements to remove
+     * @return the number of removed elements
+     */
+    int drainTo(int[] dst, int max);
 }
@@ -0,0 +1,228 @@
+package msqueue;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Queue which stores elements in fixed-size {@code int[]} segments linked
+ * like the nodes of the Michael-Scott queue. Enqueuers and dequeuers claim
+ * slots of the tail and head segments by fetch-and-add, so no object is
+ * allocated per element.
+ */
+public class SegmentQueue implements Queue {
+    private static final int DEFAULT_SEGMENT_SIZE = 64;
+
+    // slot states
+    private static final int EMPTY = 0;
+    private static final int FULL = 1;
+    private static final int BROKEN = 2;
+
+    private static class Segment {
+        final int[] items;
+        final AtomicIntegerArray states;
+        volatile int enqIdx; // index for the next enqueue operation
+        volatile int deqIdx; // index for the next dequeue operation
+        volatile Segment next;
+
+        Segment(int size) {
+            this.items = new int[size];
+            this.states = new AtomicIntegerArray(size);
+        }
+
+        Segment(int size, int x) {
+            this(size);
+            items[0] = x;
+            states.lazySet(0, FULL);
+            this.enqIdx = 1;
+        }
+
+        Segment(int size, int[] xs, int from, int to) {
+            this(size);
+            for (int i = from; i < to; i++) {
+                items[i - from] = xs[i];
+                states.lazySet(i - from, FULL);
+            }
+            this.enqIdx = to - from;
+        }
+    }
+
+    private static final AtomicIntegerFieldUpdater<Segment> ENQ_IDX =
+            AtomicIntegerFieldUpdater.newUpdater(Segment.class, "enqIdx");
+    private static final AtomicIntegerFieldUpdater<Segment> DEQ_IDX =
+            AtomicIntegerFieldUpdater.newUpdater(Segment.class, "deqIdx");
+    private static final AtomicReferenceFieldUpdater<Segment, Segment> NEXT =
+            AtomicReferenceFieldUpdater.newUpdater(Segment.class, Segment.class, "next");
+    private static final AtomicReferenceFieldUpdater<SegmentQueue, Segment> HEAD =
+            AtomicReferenceFieldUpdater.newUpdater(SegmentQueue.class, Segment.class, "head");
+    private static final AtomicReferenceFieldUpdater<SegmentQueue, Segment> TAIL =
+            AtomicReferenceFieldUpdater.newUpdater(SegmentQueue.class, Segment.class, "tail");
+
+    private final int segmentSize;
+    private volatile Segment head;
+    private volatile Segment tail;
+
+    public SegmentQueue() {
+        this(DEFAULT_SEGMENT_SIZE);
+    }
+
+    public SegmentQueue(int segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize must be positive: " + segmentSize);
+        }
+        this.segmentSize = segmentSize;
+        Segment first = new Segment(segmentSize);
+        this.head = first;
+        this.tail = first;
+    }
+
+    @Override
+    public void enqueue(int x) {
+        while (true) {
+            Segment curTail = tail;
+            Segment next = curTail.next;
+            if (next != null) {
+                TAIL.compareAndSet(this, curTail, next);
+                continue;
+            }
+            int i = ENQ_IDX.getAndIncrement(curTail);
+            if (i >= segmentSize) {
+                Segment newTail = new Segment(segmentSize, x);
+                if (NEXT.compareAndSet(curTail, null, newTail)) {
+                    TAIL.compareAndSet(this, curTail, newTail);
+                    return;
+                }
+                continue;
+            }
+            curTail.items[i] = x;
+            if (curTail.states.compareAndSet(i, EMPTY, FULL)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void enqueueAll(int[] xs, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        Segment first = new Segment(segmentSize, xs, from, Math.min(to, from + segmentSize));
+        Segment last = first;
+        for (int i = from + segmentSize; i < to; i += segmentSize) {
+            Segment segment = new Segment(segmentSize, xs, i, Math.min(to, i + segmentSize));
+            last.next = segment;
+            last = segment;
+        }
+        while (true) {
+            Segment curTail = tail;
+            Segment next = curTail.next;
+            if (next != null) {
+                TAIL.compareAndSet(this, curTail, next);
+                continue;
+            }
+            // close the tail segment, so that no element can be put in front of the batch
+            if (curTail.enqIdx < segmentSize) {
+                ENQ_IDX.getAndAdd(curTail, segmentSize);
+            }
+            if (NEXT.compareAndSet(curTail, null, first)) {
+                TAIL.compareAndSet(this, curTail, last);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public int dequeue() {
+        while (true) {
+            Segment curHead = head;
+            int i = curHead.deqIdx;
+            if (i >= segmentSize) {
+                Segment next = curHead.next;
+                if (next == null) {
+                    return Integer.MIN_VALUE;
+                }
+                HEAD.compareAndSet(this, curHead, next);
+                continue;
+            }
+            if (i >= curHead.enqIdx) {
+                return Integer.MIN_VALUE;
+            }
+            i = DEQ_IDX.getAndIncrement(curHead);
+            if (i >= segmentSize || curHead.states.compareAndSet(i, EMPTY, BROKEN)) {
+                continue;
+            }
+            // the slot may have been broken by a peek rather than filled
+            if (curHead.states.get(i) != FULL) {
+                continue;
+            }
+            return curHead.items[i];
+        }
+    }
+
+    @Override
+    public int peek() {
+        while (true) {
+            Segment curHead = head;
+            int i = curHead.deqIdx;
+            if (i >= segmentSize) {
+                Segment next = curHead.next;
+                if (next == null) {
+                    return Integer.MIN_VALUE;
+                }
+                HEAD.compareAndSet(this, curHead, next);
+                continue;
+            }
+            if (i >= curHead.enqIdx) {
+                return Integer.MIN_VALUE;
+            }
+            if (curHead.states.get(i) == FULL) {
+                if (curHead.deqIdx == i) {
+                    return curHead.items[i];
+                }
+                continue;
+            }
+            // the enqueuer of this slot is still in progress: break the slot and skip it
+            curHead.states.compareAndSet(i, EMPTY, BROKEN);
+            if (curHead.states.get(i) == BROKEN) {
+                DEQ_IDX.compareAndSet(curHead, i, i + 1);
+            }
+        }
+    }
+
+    @Override
+    public int drainTo(int[] dst, int max) {
+        max = Math.min(max, dst.length);
+        if (max <= 0) {
+            return 0;
+        }
+        while (true) {
+            Segment curHead = head;
+            int i = curHead.deqIdx;
+            if (i >= segmentSize) {
+                Segment next = curHead.next;
+                if (next == null) {
+                    return 0;
+                }
+                HEAD.compareAndSet(this, curHead, next);
+                continue;
+            }
+            int end = Math.min(curHead.enqIdx, segmentSize);
+            if (i >= end) {
+                return 0;
+            }
+            end = Math.min(end, i + max);
+            if (!DEQ_IDX.compareAndSet(curHead, i, end)) {
+                continue;
+            }
+            int count = 0;
+            for (int j = i; j < end; j++) {
+                if (!curHead.states.compareAndSet(j, EMPTY, BROKEN) && curHead.states.get(j) == FULL) {
+                    dst[count++] = curHead.items[j];
+                }
+            }
+            if (count > 0) {
+                return count;
+            }
+        }
+    }
+}
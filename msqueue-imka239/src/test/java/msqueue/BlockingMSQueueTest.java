@@ -0,0 +1,94 @@
+package msqueue;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BlockingMSQueueTest {
+    private static final int THREADS = 4;
+    private static final int N = 100_000;
+
+    @Test
+    public void testPollTimeout() throws InterruptedException {
+        BlockingMSQueue queue = new BlockingMSQueue();
+        long start = System.nanoTime();
+        assertEquals(Integer.MIN_VALUE, queue.poll(50, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        queue.put(239);
+        assertEquals(239, queue.poll(50, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testInterruptWithElement() throws InterruptedException {
+        final MSQueue underlying = new MSQueue();
+        final BlockingMSQueue queue = new BlockingMSQueue(underlying);
+        final AtomicInteger taken = new AtomicInteger();
+        final AtomicInteger interrupted = new AtomicInteger();
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    taken.set(queue.take());
+                    interrupted.set(Thread.currentThread().isInterrupted() ? 1 : 0);
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        consumer.start();
+        while (consumer.getState() != Thread.State.WAITING) {
+            Thread.yield();
+        }
+        // an element which arrives without a signal is found after the interrupt wakes the consumer up
+        underlying.enqueue(239);
+        consumer.interrupt();
+        consumer.join(TimeUnit.MINUTES.toMillis(1));
+        assertFalse(consumer.isAlive());
+        assertEquals(239, taken.get());
+        assertEquals("the interrupt status is lost", 1, interrupted.get());
+    }
+
+    @Test
+    public void testTake() throws InterruptedException {
+        final BlockingMSQueue queue = new BlockingMSQueue();
+        final AtomicLong sum = new AtomicLong();
+        Thread[] threads = new Thread[2 * THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < N; i++) {
+                            sum.addAndGet(queue.take());
+                        }
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+            });
+            threads[THREADS + t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < N; i++) {
+                        queue.put(i);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.MINUTES.toMillis(1));
+            assertTrue("consumers did not receive all elements", !thread.isAlive());
+        }
+        assertEquals((long) THREADS * N * (N - 1) / 2, sum.get());
+        assertEquals(Integer.MIN_VALUE, queue.dequeue());
+    }
+}
@@ -0,0 +1,162 @@
+package msqueue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class DurableMSQueueTest {
+    private static final int CAPACITY = 10_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecovery() throws IOException {
+        File dir = folder.getRoot();
+        DurableMSQueue queue = new DurableMSQueue(dir, CAPACITY);
+        for (int i = 0; i < 3000; i++) {
+            queue.enqueue(i);
+        }
+        for (int i = 0; i < 2000; i++) {
+            assertEquals(i, queue.dequeue());
+        }
+        queue.close();
+
+        queue = new DurableMSQueue(dir, CAPACITY);
+        queue.enqueueAll(new int[]{3000, 3001, 3002}, 0, 3);
+        int[] dst = new int[10];
+        assertEquals(10, queue.drainTo(dst, dst.length));
+        for (int i = 0; i < dst.length; i++) {
+            assertEquals(2000 + i, dst[i]);
+        }
+        // reopen without closing: the second queue reads what the first one has written so far
+        queue = new DurableMSQueue(dir, CAPACITY);
+        for (int i = 2010; i < 3003; i++) {
+            assertEquals(i, queue.peek());
+            assertEquals(i, queue.dequeue());
+        }
+        assertEquals(Integer.MIN_VALUE, queue.dequeue());
+        queue.close();
+
+        queue = new DurableMSQueue(dir, CAPACITY);
+        assertEquals(Integer.MIN_VALUE, queue.dequeue());
+        queue.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFull() throws IOException {
+        DurableMSQueue queue = new DurableMSQueue(folder.getRoot(), 2);
+        queue.enqueue(1);
+        queue.enqueue(2);
+        queue.enqueue(3);
+    }
+
+    @Test
+    public void testReuse() throws IOException {
+        File dir = folder.getRoot();
+        DurableMSQueue queue = new DurableMSQueue(dir, 2);
+        for (int i = 0; i < 10_000; i++) {
+            queue.enqueue(2 * i);
+            queue.enqueueAll(new int[]{2 * i + 1}, 0, 1);
+            try {
+                queue.enqueue(-1);
+                fail();
+            } catch (IllegalStateException e) {
+                // the queue is full
+            }
+            assertEquals(2 * i, queue.peek());
+            assertEquals(2 * i, queue.dequeue());
+            if (i % 1000 == 999) {
+                queue.close();
+                queue = new DurableMSQueue(dir, 2);
+            }
+            assertEquals(2 * i + 1, queue.dequeue());
+        }
+        queue.enqueue(1);
+        queue.close();
+        queue = new DurableMSQueue(dir, 2);
+        assertEquals(1, queue.dequeue());
+        assertEquals(Integer.MIN_VALUE, queue.dequeue());
+        queue.close();
+    }
+
+    @Test
+    public void testConcurrentReuse() throws Exception {
+        final int elements = 20_000;
+        final DurableMSQueue queue = new DurableMSQueue(folder.getRoot(), 64);
+        final AtomicLong sum = new AtomicLong();
+        final AtomicInteger dequeued = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final boolean producer = t % 2 == 0;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    if (producer) {
+                        for (int i = 0; i < elements; ) {
+                            try {
+                                queue.enqueue(i);
+                                i++;
+                            } catch (IllegalStateException e) {
+                                Thread.yield(); // full, wait for the consumers
+                            }
+                        }
+                    } else {
+                        while (dequeued.get() < 2 * elements) {
+                            int x = queue.dequeue();
+                            if (x != Integer.MIN_VALUE) {
+                                sum.addAndGet(x);
+                                dequeued.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(Integer.MIN_VALUE, queue.dequeue());
+        assertEquals(2L * elements * (elements - 1) / 2, sum.get());
+        queue.close();
+    }
+
+    @Test
+    public void testConcurrentEnqueue() throws Exception {
+        final File dir = folder.getRoot();
+        final DurableMSQueue queue = new DurableMSQueue(dir, CAPACITY);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < CAPACITY / 4; i++) {
+                        queue.enqueue(i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        queue.close();
+        DurableMSQueue recovered = new DurableMSQueue(dir, CAPACITY);
+        long sum = 0;
+        for (int i = 0; i < CAPACITY; i++) {
+            sum += recovered.dequeue();
+        }
+        assertEquals(Integer.MIN_VALUE, recovered.dequeue());
+        assertEquals(4L * (CAPACITY / 4) * (CAPACITY / 4 - 1) / 2, sum);
+        recovered.close();
+    }
+}
@@ -6,16 +6,69 @@ import java.util.ArrayDeque;
 import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class FunctionalTest {
     private static Random R = new Random(0);
 
     @Test
     public void test() {
-        Queue queue = new MSQueue();
+        test(new MSQueue());
+    }
+
+    @Test
+    public void testRecycling() {
+        test(new MSQueue(true));
+    }
+
+    @Test
+    public void testFieldUpdater() {
+        test(new FieldUpdaterMSQueue());
+    }
+
+    @Test
+    public void testSegment() {
+        test(new SegmentQueue(2));
+        test(new SegmentQueue());
+    }
+
+    @Test
+    public void testMPSC() {
+        test(new MPSCQueue());
+    }
+
+    @Test
+    public void testBounded() {
+        BoundedMSQueue queue = new BoundedMSQueue(10);
+        int[] xs = {1, 2, 3, 4, 5, 6};
+        assertTrue(queue.offerAll(xs, 0, xs.length));
+        assertFalse(queue.offerAll(xs, 0, 5));
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(239));
+        assertEquals(1, queue.dequeue());
+        assertTrue(queue.offer(239));
+        assertFalse(queue.offer(239));
+        int[] dst = new int[3];
+        assertEquals(3, queue.drainTo(dst, dst.length));
+        assertTrue(queue.offerAll(xs, 0, 3));
+        assertFalse(queue.offer(239));
+        try {
+            queue.offer(Integer.MIN_VALUE);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // reserved
+        }
+        test(new BoundedMSQueue(Integer.MAX_VALUE));
+    }
+
+    private void test(Queue queue) {
         java.util.Queue<Integer> javaQueue = new ArrayDeque<>();
         for (int i = 0; i < 1_000_000; i++) {
-            int op = R.nextInt(3);
+            int op = R.nextInt(5);
             int x = R.nextInt(30);
             switch (op) {
             case 0:
@@ -33,6 +86,25 @@ public class FunctionalTest {
                 if (javaQueue.isEmpty()) assertEquals(Integer.MIN_VALUE, queue.dequeue());
                 else assertEquals((int) javaQueue.poll(), queue.dequeue());
                 break;
+            case 3:
+                // enqueueAll
+                int[] xs = new int[x % 5];
+                for (int j = 0; j < xs.length; j++) {
+                    xs[j] = R.nextInt(30);
+                    javaQueue.add(xs[j]);
+                }
+                queue.enqueueAll(xs, 0, xs.length);
+                break;
+            case 4:
+                // drainTo
+                int[] dst = new int[x % 5];
+                int count = queue.drainTo(dst, dst.length);
+                assertEquals(Math.min(dst.length, javaQueue.size()) > 0, count > 0);
+                assertTrue(count <= Math.min(dst.length, javaQueue.size()));
+                for (int j = 0; j < count; j++) {
+                    assertEquals((int) javaQueue.poll(), dst[j]);
+                }
+                break;
             }
         }
     }
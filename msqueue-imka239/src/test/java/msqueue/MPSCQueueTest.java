@@ -0,0 +1,64 @@
+package msqueue;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MPSCQueueTest {
+    private static final int PRODUCERS = 4;
+    private static final int N = 100_000;
+
+    @Test
+    public void testSingleConsumer() throws InterruptedException {
+        final MPSCQueue queue = new MPSCQueue();
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int t = 0; t < PRODUCERS; t++) {
+            final int id = t;
+            producers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    int[] xs = new int[3];
+                    for (int i = 0; i < N; ) {
+                        if (i % 2 == 0 || i + xs.length > N) {
+                            queue.enqueue(i++ * PRODUCERS + id);
+                        } else {
+                            for (int j = 0; j < xs.length; j++) {
+                                xs[j] = i++ * PRODUCERS + id;
+                            }
+                            queue.enqueueAll(xs, 0, xs.length);
+                        }
+                    }
+                }
+            });
+            producers[t].start();
+        }
+        // elements of every producer must arrive in order
+        int[] expected = new int[PRODUCERS];
+        int[] dst = new int[5];
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        for (int received = 0; received < PRODUCERS * N; ) {
+            assertTrue("consumer did not receive all elements", System.nanoTime() < deadline);
+            int count;
+            if (received % 2 == 0) {
+                int x = queue.dequeue();
+                count = x == Integer.MIN_VALUE ? 0 : 1;
+                dst[0] = x;
+            } else {
+                count = queue.drainTo(dst, dst.length);
+            }
+            for (int j = 0; j < count; j++) {
+                int id = dst[j] % PRODUCERS;
+                assertEquals(expected[id]++, dst[j] / PRODUCERS);
+            }
+            received += count;
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertEquals(Integer.MIN_VALUE, queue.peek());
+        assertEquals(Integer.MIN_VALUE, queue.dequeue());
+    }
+}
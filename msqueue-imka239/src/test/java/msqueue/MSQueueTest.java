@@ -0,0 +1,90 @@
+package msqueue;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MSQueueTest {
+    private static final int PRODUCERS = 2;
+    private static final int CONSUMERS = 2;
+    private static final int N = 200_000;
+
+    /**
+     * Runs enqueues, dequeues, drains and peeks on a queue which recycles its nodes, long
+     * enough for every node to be reused many times. A node reused too early would lose
+     * or duplicate an element, break the order of a producer or let a peek see a value
+     * which has never been enqueued.
+     */
+    @Test
+    public void testConcurrentRecycling() throws InterruptedException {
+        final MSQueue queue = new MSQueue(true);
+        final AtomicIntegerArray received = new AtomicIntegerArray(PRODUCERS * N + 1);
+        final AtomicInteger total = new AtomicInteger();
+        final AtomicBoolean failed = new AtomicBoolean();
+        Thread[] threads = new Thread[PRODUCERS + CONSUMERS];
+        for (int t = 0; t < PRODUCERS; t++) {
+            final int id = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < N; i++) {
+                        queue.enqueue(i * PRODUCERS + id + 1);
+                    }
+                }
+            });
+        }
+        for (int t = PRODUCERS; t < PRODUCERS + CONSUMERS; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    int[] last = new int[PRODUCERS];
+                    int[] dst = new int[3];
+                    long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+                    for (int k = 0; total.get() < PRODUCERS * N && System.nanoTime() < deadline; k++) {
+                        int x = queue.peek();
+                        if (x != Integer.MIN_VALUE && !valid(x)) {
+                            failed.set(true);
+                        }
+                        int count;
+                        if (k % 2 == 0) {
+                            dst[0] = queue.dequeue();
+                            count = dst[0] == Integer.MIN_VALUE ? 0 : 1;
+                        } else {
+                            count = queue.drainTo(dst, dst.length);
+                        }
+                        for (int j = 0; j < count; j++) {
+                            x = dst[j];
+                            int id = (x - 1) % PRODUCERS;
+                            if (!valid(x) || received.getAndIncrement(x) != 0 || x <= last[id]) {
+                                failed.set(true);
+                            }
+                            last[id] = x;
+                        }
+                        total.addAndGet(count);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue("a value was lost, received twice or out of order", !failed.get());
+        for (int x = 1; x <= PRODUCERS * N; x++) {
+            assertEquals(1, received.get(x));
+        }
+        assertEquals(Integer.MIN_VALUE, queue.dequeue());
+    }
+
+    private static boolean valid(int x) {
+        return x >= 1 && x <= PRODUCERS * N;
+    }
+}
@@ -0,0 +1,31 @@
+package msqueue;
+
+import org.jetbrains.kotlinx.lincheck.LinChecker;
+import org.jetbrains.kotlinx.lincheck.annotations.Operation;
+import org.jetbrains.kotlinx.lincheck.strategy.stress.StressCTest;
+import org.junit.Test;
+
+@StressCTest(sequentialSpecification = SequentialQueue.class)
+public class SegmentQueueLinearizabilityTest {
+    private final Queue queue = new SegmentQueue(2);
+
+    @Operation
+    public void enqueue(int x) {
+        queue.enqueue(x);
+    }
+
+    @Operation
+    public int peek() {
+        return queue.peek();
+    }
+
+    @Operation
+    public int dequeue() {
+        return queue.dequeue();
+    }
+
+    @Test
+    public void test() {
+        LinChecker.check(SegmentQueueLinearizabilityTest.class);
+    }
+}
@@ -24,6 +24,22 @@ public class SequentialQueue extends VerifierState implements Queue {
         else return q.peek();
     }
 
+    @Override
+    public void enqueueAll(int[] xs, int from, int to) {
+        for (int i = from; i < to; i++) {
+            q.add(xs[i]);
+        }
+    }
+
+    @Override
+    public int drainTo(int[] dst, int max) {
+        int count = 0;
+        while (count < Math.min(max, dst.length) && !q.isEmpty()) {
+            dst[count++] = q.poll();
+        }
+        return count;
+    }
+
     @Override
     protected Object extractState() {
         return q.toString();
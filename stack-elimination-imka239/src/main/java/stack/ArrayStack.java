@@ -0,0 +1,177 @@
+package stack;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Bounded lock-free stack stored in an array.
+ * <p>
+ * The top of the stack is a single {@code long} word packing the index of the top entry,
+ * its version and its value, so a push or a pop is a single CAS on it. Every entry of the
+ * array holds a value and a version as well; the entry of the new top is brought up to date
+ * lazily by the next operation, which first completes the write of its predecessor (see
+ * Shafiei, "Non-blocking array-based algorithms for stacks and queues"). Each write of an
+ * entry increments its version, which guards the CAS on the top against ABA as long as an
+ * operation is not delayed for 2<sup>16</sup> writes of the same entry.
+ * <p>
+ * Operations whose CAS on the top fails try to eliminate each other in an
+ * {@link EliminationArray}, as in {@link StackImpl}.
+ */
+public class ArrayStack implements Stack {
+    /**
+     * The maximum capacity, limited by the 16 bits of the index in the top word.
+     */
+    public static final int MAX_CAPACITY = (1 << 16) - 1;
+
+    private static final int VERSION_MASK = 0xFFFF;
+
+    /**
+     * Element offered to the elimination array, created only when the CAS on the top fails.
+     */
+    private static class Cell {
+        final int x;
+
+        Cell(int x) {
+            this.x = x;
+        }
+    }
+
+    private static final AtomicLongFieldUpdater<ArrayStack> TOP =
+            AtomicLongFieldUpdater.newUpdater(ArrayStack.class, "top");
+
+    private final int capacity;
+    private final AtomicLongArray entries; // entry 0 is a sentinel below the bottom
+    private final EliminationArray<Cell> elimination =
+            new EliminationArray<>(2 * Runtime.getRuntime().availableProcessors(), null);
+    private volatile long top;
+
+    public ArrayStack(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new AtomicLongArray(capacity + 1);
+    }
+
+    /**
+     * Pushes the element onto the top of this stack if it is not full.
+     *
+     * @return {@code true} if the element was pushed, {@code false} if this stack is full
+     */
+    public boolean offer(int x) {
+        Cell cell = null;
+        while (true) {
+            long t = top;
+            finish(t);
+            int index = index(t);
+            if (index == capacity) {
+                return false;
+            }
+            long above = entries.get(index + 1);
+            if (TOP.compareAndSet(this, t, word(index + 1, version(above) + 1, x))) {
+                return true;
+            }
+            if (cell == null) {
+                cell = new Cell(x);
+            }
+            if (elimination.tryPush(cell)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if this stack is full
+     */
+    @Override
+    public void push(int x) {
+        if (!offer(x)) {
+            throw new IllegalStateException("Stack full");
+        }
+    }
+
+    @Override
+    public int pop() {
+        while (true) {
+            long t = top;
+            finish(t);
+            int index = index(t);
+            if (index == 0) {
+                return Integer.MIN_VALUE;
+            }
+            long below = entries.get(index - 1);
+            if (TOP.compareAndSet(this, t, word(index - 1, version(below) + 1, value(below)))) {
+                return value(t);
+            }
+            Cell cell = elimination.tryPop();
+            if (cell != null) {
+                return cell.x;
+            }
+        }
+    }
+
+    /**
+     * Pushes the elements one by one, so unlike {@link StackImpl#pushAll(int[])}
+     * concurrent operations may interleave with them.
+     *
+     * @throws IllegalStateException if this stack gets full; the elements
+     *                               before the rejected one stay pushed
+     */
+    @Override
+    public void pushAll(int[] xs) {
+        for (int x : xs) {
+            push(x);
+        }
+    }
+
+    /**
+     * Pops the elements one by one, so unlike {@link StackImpl#popMany(int[], int)}
+     * concurrent operations may interleave with them.
+     */
+    @Override
+    public int popMany(int[] dst, int max) {
+        max = Math.min(max, dst.length);
+        int count = 0;
+        while (count < max) {
+            int x = pop();
+            if (x == Integer.MIN_VALUE) {
+                break;
+            }
+            dst[count++] = x;
+        }
+        return count;
+    }
+
+    /**
+     * Writes the value of the top word into its entry, unless it is already there.
+     */
+    private void finish(long t) {
+        int index = index(t);
+        long e = entries.get(index);
+        if (version(e) == ((version(t) - 1) & VERSION_MASK)) {
+            entries.compareAndSet(index, e, entry(version(t), value(t)));
+        }
+    }
+
+    // top word: index (16 bits), version (16 bits), value (32 bits)
+    private static long word(int index, int version, int value) {
+        return (long) index << 48 | entry(version, value);
+    }
+
+    // entry: version (16 bits), value (32 bits)
+    private static long entry(int version, int value) {
+        return (long) (version & VERSION_MASK) << 32 | value & 0xFFFFFFFFL;
+    }
+
+    private static int index(long word) {
+        return (int) (word >>> 48);
+    }
+
+    private static int version(long word) {
+        return (int) (word >>> 32) & VERSION_MASK;
+    }
+
+    private static int value(long word) {
+        return (int) word;
+    }
+}
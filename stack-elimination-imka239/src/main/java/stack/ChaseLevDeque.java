@@ -0,0 +1,97 @@
+package stack;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Chase-Lev work-stealing deque over a growable circular {@code int[]} buffer.
+ * <p>
+ * The owner thread pushes and pops elements at the bottom like a stack and is the only one
+ * allowed to call {@link #push(int)} and {@link #pop()}; these need no CAS unless a single
+ * element is left. Any other thread may {@link #steal()} elements from the top, i.e.
+ * the oldest ones, which it claims by a CAS on {@code top}.
+ */
+public class ChaseLevDeque {
+    private static final int INITIAL_CAPACITY = 32; // must be a power of two
+
+    private static final AtomicLongFieldUpdater<ChaseLevDeque> TOP =
+            AtomicLongFieldUpdater.newUpdater(ChaseLevDeque.class, "top");
+
+    private volatile long top; // index of the oldest element
+    private volatile long bottom; // index of the next pushed element, written by the owner only
+    private volatile int[] buffer = new int[INITIAL_CAPACITY];
+
+    /**
+     * Pushes the element onto the bottom of this deque. Must be called by the owner only.
+     */
+    public void push(int x) {
+        long b = bottom;
+        long t = top;
+        int[] a = buffer;
+        if (b - t >= a.length) {
+            a = grow(a, t, b);
+            buffer = a;
+        }
+        a[(int) b & (a.length - 1)] = x;
+        bottom = b + 1;
+    }
+
+    /**
+     * Removes the most recently pushed element, or returns {@link Integer#MIN_VALUE}
+     * if this deque is empty. Must be called by the owner only.
+     */
+    public int pop() {
+        long b = bottom - 1;
+        int[] a = buffer;
+        bottom = b;
+        // the volatile write of bottom is ordered before this read, so a thief either sees
+        // the new bottom or has already moved top, and we see it
+        long t = top;
+        if (t > b) {
+            bottom = b + 1;
+            return Integer.MIN_VALUE;
+        }
+        int x = a[(int) b & (a.length - 1)];
+        if (t < b) {
+            return x;
+        }
+        // the last element: race with the thieves for it
+        boolean won = TOP.compareAndSet(this, t, t + 1);
+        bottom = b + 1;
+        return won ? x : Integer.MIN_VALUE;
+    }
+
+    /**
+     * Removes the least recently pushed element, or returns {@link Integer#MIN_VALUE}
+     * if this deque is empty. May be called by any thread.
+     */
+    public int steal() {
+        while (true) {
+            long t = top;
+            long b = bottom;
+            if (t >= b) {
+                return Integer.MIN_VALUE;
+            }
+            int[] a = buffer;
+            int x = a[(int) t & (a.length - 1)];
+            if (TOP.compareAndSet(this, t, t + 1)) {
+                return x;
+            }
+        }
+    }
+
+    /**
+     * Returns the approximate number of elements in this deque.
+     */
+    public int size() {
+        long n = bottom - top;
+        return n < 0 ? 0 : (int) n;
+    }
+
+    private static int[] grow(int[] a, long t, long b) {
+        int[] newBuffer = new int[2 * a.length];
+        for (long i = t; i < b; i++) {
+            newBuffer[(int) i & (newBuffer.length - 1)] = a[(int) i & (a.length - 1)];
+        }
+        return newBuffer;
+    }
+}
@@ -0,0 +1,73 @@
+package stack;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One owner thread, which pushes and pops tasks, against several thieves.
+ * Every group gets a deque of its own, since a deque has a single owner.
+ */
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@State(Scope.Group)
+public class ChaseLevDequeBenchmark {
+    @Param({"1", "10", "50", "100"})
+    public int work = 0;
+
+    private ChaseLevDeque deque;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        deque = new ChaseLevDeque();
+    }
+
+    @Group("deque")
+    @GroupThreads(1)
+    @Benchmark
+    public int owner() {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        // push two tasks per pop, so that the thieves have something to steal
+        if (r.nextInt(3) == 0) {
+            return deque.pop();
+        }
+        deque.push(r.nextInt());
+        return 0;
+    }
+
+    @Group("deque")
+    @GroupThreads(3)
+    @Benchmark
+    public int thief() {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        return deque.steal();
+    }
+
+    /**
+     * Runs the benchmark with 1, 2, 4, ... thieves, up to the number of available processors minus one.
+     */
+    public static void main(String[] args) throws RunnerException {
+        int maxThieves = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        for (int thieves = 1; thieves <= maxThieves;
+             thieves = thieves < maxThieves ? Math.min(2 * thieves, maxThieves) : thieves + 1) {
+            Options opt = new OptionsBuilder()
+                    .include(ChaseLevDequeBenchmark.class.getSimpleName())
+                    .forks(1)
+                    .threadGroups(1, thieves)
+                    .build();
+            new Runner(opt).run();
+        }
+    }
+}
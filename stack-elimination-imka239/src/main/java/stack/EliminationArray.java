@@ -0,0 +1,102 @@
+package stack;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Elimination layer of a stack: a pusher leaves its node in a random slot for a short
+ * window, and a popper which finds it there takes it, so that both operations complete
+ * without touching the top of the stack.
+ * <p>
+ * Both the number of slots in use and the exchange window adapt to the load. A pusher
+ * which finds its slot occupied widens the array, while one which has waited in vain
+ * narrows it and shortens the window; a successful exchange lengthens the window again.
+ * The parameters are shared by all threads and updated without synchronization, so
+ * they are only approximate.
+ */
+final class EliminationArray<N> {
+    private static final int PADDING = 16; // slots per cache line with compressed references
+    private static final int MIN_WINDOW = 16;
+    private static final int MAX_WINDOW = 1024;
+
+    private final AtomicReferenceArray<N> slots;
+    private final int capacity;
+    private final EliminationCounters counters; // null if the metrics are disabled
+    private volatile int width = 1; // number of slots in use
+    private volatile int window = MIN_WINDOW; // number of checks of a slot before a pusher gives up
+
+    EliminationArray(int capacity, EliminationCounters counters) {
+        this.capacity = capacity;
+        this.counters = counters;
+        this.slots = new AtomicReferenceArray<>(capacity * PADDING);
+    }
+
+    /**
+     * Offers the node to a concurrent {@link #tryPop()}.
+     *
+     * @return {@code true} if the node has been taken by a popper,
+     * {@code false} if no popper has come in time
+     */
+    boolean tryPush(N node) {
+        int w = width;
+        int slot = ThreadLocalRandom.current().nextInt(w);
+        int index = slot * PADDING;
+        if (!slots.compareAndSet(index, null, node)) {
+            if (w < capacity) {
+                width = w + 1;
+            }
+            if (counters != null) {
+                counters.get().slotCollisions++;
+            }
+            return false;
+        }
+        if (counters != null) {
+            counters.get().slotOccupancy[slot]++;
+        }
+        int limit = window;
+        for (int i = 0; i < limit; i++) {
+            if (slots.get(index) != node) {
+                onSuccess(limit);
+                return true;
+            }
+        }
+        if (slots.compareAndSet(index, node, null)) {
+            w = width;
+            if (w > 1) {
+                width = w - 1;
+            }
+            if (limit > MIN_WINDOW) {
+                window = limit >> 1;
+            }
+            if (counters != null) {
+                counters.get().eliminationTimeouts++;
+            }
+            return false;
+        }
+        onSuccess(limit);
+        return true;
+    }
+
+    /**
+     * Takes a node offered by a concurrent {@link #tryPush(Object)}.
+     *
+     * @return the node, or {@code null} if there is none in the probed slot
+     */
+    N tryPop() {
+        int index = ThreadLocalRandom.current().nextInt(width) * PADDING;
+        N node = slots.get(index);
+        if (node != null && slots.compareAndSet(index, node, null)) {
+            return node;
+        }
+        return null;
+    }
+
+    private void onSuccess(int limit) {
+        if (limit < MAX_WINDOW) {
+            window = limit << 1;
+        }
+        if (counters != null) {
+            counters.get().eliminatedPairs++;
+        }
+    }
+}
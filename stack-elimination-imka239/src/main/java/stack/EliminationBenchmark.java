@@ -0,0 +1,95 @@
+package stack;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the events counted by an instrumented {@link StackImpl} under a 2:2 mix of
+ * pushers and poppers as secondary results, next to the throughput. JMH reports
+ * auxiliary counters in the {@code Throughput} mode only. {@link StackBenchmark}
+ * measures the cost of the instrumentation itself as {@code InstrumentedStackImpl}.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EliminationBenchmark {
+    @Param({"1", "10", "50", "100"})
+    public int work = 0;
+
+    private StackImpl s;
+
+    /**
+     * Events counted during an iteration. The counters are striped per thread, so the sum
+     * over the threads, which JMH reports, is the total.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Metrics {
+        public long eliminatedPairs;
+        public long eliminationTimeouts;
+        public long slotCollisions;
+        public long casSuccesses;
+        public long casFailures;
+
+        private StackImpl stack;
+        private EliminationMetrics before;
+
+        @Setup(Level.Iteration)
+        public void setUp(EliminationBenchmark benchmark) {
+            stack = benchmark.s;
+            before = stack.threadMetrics();
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            EliminationMetrics delta = stack.threadMetrics().minus(before);
+            eliminatedPairs = delta.eliminatedPairs();
+            eliminationTimeouts = delta.eliminationTimeouts();
+            slotCollisions = delta.slotCollisions();
+            casSuccesses = delta.casSuccesses();
+            casFailures = delta.casFailures();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        s = new StackImpl(false, true);
+    }
+
+    @Group("elimination")
+    @GroupThreads(2)
+    @Benchmark
+    public void push(Metrics metrics) {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        s.push(r.nextInt());
+    }
+
+    @Group("elimination")
+    @GroupThreads(2)
+    @Benchmark
+    public int pop(Metrics metrics) {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        return s.pop();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include("^" + EliminationBenchmark.class.getName() + ".")
+                .forks(1)
+                .build();
+        new Runner(opt).run();
+    }
+}
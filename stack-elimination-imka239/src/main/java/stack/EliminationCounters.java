@@ -0,0 +1,82 @@
+package stack;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Event counters of a {@link StackImpl}, striped per thread: every thread increments
+ * the plain fields of its own {@link Stripe}, and {@link #snapshot()} sums them up.
+ */
+final class EliminationCounters {
+    static final class Stripe {
+        long eliminatedPairs;
+        long eliminationTimeouts;
+        long slotCollisions;
+        long casSuccesses;
+        long casFailures;
+        final long[] slotOccupancy;
+        final Stripe next;
+
+        Stripe(int slots, Stripe next) {
+            this.slotOccupancy = new long[slots];
+            this.next = next;
+        }
+
+        EliminationMetrics snapshot() {
+            return new EliminationMetrics(eliminatedPairs, eliminationTimeouts, slotCollisions,
+                    casSuccesses, casFailures, slotOccupancy.clone());
+        }
+    }
+
+    private static final AtomicReferenceFieldUpdater<EliminationCounters, Stripe> STRIPES =
+            AtomicReferenceFieldUpdater.newUpdater(EliminationCounters.class, Stripe.class, "stripes");
+
+    private final int slots;
+    private volatile Stripe stripes;
+    private final ThreadLocal<Stripe> stripe = new ThreadLocal<Stripe>() {
+        @Override
+        protected Stripe initialValue() {
+            while (true) {
+                Stripe curHead = stripes;
+                Stripe s = new Stripe(slots, curHead);
+                if (STRIPES.compareAndSet(EliminationCounters.this, curHead, s)) {
+                    return s;
+                }
+            }
+        }
+    };
+
+    EliminationCounters(int slots) {
+        this.slots = slots;
+    }
+
+    /**
+     * Returns the counters of the current thread.
+     */
+    Stripe get() {
+        return stripe.get();
+    }
+
+    /**
+     * Sums up the counters of all the threads.
+     */
+    EliminationMetrics snapshot() {
+        long eliminatedPairs = 0;
+        long eliminationTimeouts = 0;
+        long slotCollisions = 0;
+        long casSuccesses = 0;
+        long casFailures = 0;
+        long[] slotOccupancy = new long[slots];
+        for (Stripe s = stripes; s != null; s = s.next) {
+            eliminatedPairs += s.eliminatedPairs;
+            eliminationTimeouts += s.eliminationTimeouts;
+            slotCollisions += s.slotCollisions;
+            casSuccesses += s.casSuccesses;
+            casFailures += s.casFailures;
+            for (int i = 0; i < slots; i++) {
+                slotOccupancy[i] += s.slotOccupancy[i];
+            }
+        }
+        return new EliminationMetrics(eliminatedPairs, eliminationTimeouts, slotCollisions,
+                casSuccesses, casFailures, slotOccupancy);
+    }
+}
@@ -0,0 +1,93 @@
+package stack;
+
+import java.util.Arrays;
+
+/**
+ * Snapshot of the events counted by a {@link StackImpl} created with metrics enabled.
+ * <p>
+ * The counters are updated by every thread without synchronization, so a snapshot
+ * taken while operations are in progress is approximate.
+ */
+public final class EliminationMetrics {
+    private final long eliminatedPairs;
+    private final long eliminationTimeouts;
+    private final long slotCollisions;
+    private final long casSuccesses;
+    private final long casFailures;
+    private final long[] slotOccupancy;
+
+    EliminationMetrics(long eliminatedPairs, long eliminationTimeouts, long slotCollisions,
+                       long casSuccesses, long casFailures, long[] slotOccupancy) {
+        this.eliminatedPairs = eliminatedPairs;
+        this.eliminationTimeouts = eliminationTimeouts;
+        this.slotCollisions = slotCollisions;
+        this.casSuccesses = casSuccesses;
+        this.casFailures = casFailures;
+        this.slotOccupancy = slotOccupancy;
+    }
+
+    /**
+     * Returns the number of pushes which were taken by a pop in the elimination array.
+     */
+    public long eliminatedPairs() {
+        return eliminatedPairs;
+    }
+
+    /**
+     * Returns the number of pushes which left the elimination array without meeting a pop.
+     */
+    public long eliminationTimeouts() {
+        return eliminationTimeouts;
+    }
+
+    /**
+     * Returns the number of pushes which found their elimination slot occupied.
+     */
+    public long slotCollisions() {
+        return slotCollisions;
+    }
+
+    /**
+     * Returns the number of successful CAS operations on the head of the stack.
+     */
+    public long casSuccesses() {
+        return casSuccesses;
+    }
+
+    /**
+     * Returns the number of failed CAS operations on the head of the stack.
+     */
+    public long casFailures() {
+        return casFailures;
+    }
+
+    /**
+     * Returns how many times each slot of the elimination array has been occupied by a push.
+     */
+    public long[] slotOccupancy() {
+        return slotOccupancy.clone();
+    }
+
+    /**
+     * Returns the counters of this snapshot minus the ones of an earlier snapshot.
+     */
+    public EliminationMetrics minus(EliminationMetrics before) {
+        long[] occupancy = new long[slotOccupancy.length];
+        for (int i = 0; i < occupancy.length; i++) {
+            occupancy[i] = slotOccupancy[i] - before.slotOccupancy[i];
+        }
+        return new EliminationMetrics(eliminatedPairs - before.eliminatedPairs,
+                eliminationTimeouts - before.eliminationTimeouts, slotCollisions - before.slotCollisions,
+                casSuccesses - before.casSuccesses, casFailures - before.casFailures, occupancy);
+    }
+
+    @Override
+    public String toString() {
+        return "EliminationMetrics{eliminatedPairs=" + eliminatedPairs
+                + ", eliminationTimeouts=" + eliminationTimeouts
+                + ", slotCollisions=" + slotCollisions
+                + ", casSuccesses=" + casSuccesses
+                + ", casFailures=" + casFailures
+                + ", slotOccupancy=" + Arrays.toString(slotOccupancy) + "}";
+    }
+}
@@ -0,0 +1,177 @@
+package stack;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Flat-combining stack.
+ * <p>
+ * A thread publishes its operation in its own request record and tries to acquire the lock.
+ * The thread which gets it becomes the combiner: it serves the requests of all the threads
+ * in one pass over the records, and the rest wait until their requests are served. Pushes and
+ * pops met in the same pass cancel each other out, so only the unmatched ones reach the
+ * stack itself, which is a plain array accessed by the combiner only.
+ */
+public class FlatCombiningStack implements Stack {
+    private static final int SPINS = 64; // checks of the own request before yielding
+
+    // request operations
+    private static final int NONE = 0;
+    private static final int PUSH = 1;
+    private static final int POP = 2;
+    private static final int PUSH_ALL = 3;
+    private static final int POP_MANY = 4;
+
+    private static class Request {
+        volatile int op = NONE; // reset to NONE by the combiner when the request is served
+        int x; // argument of a push, result of a pop, maximum and then result of a popMany
+        int[] xs; // argument of a pushAll, destination of a popMany
+        final Request next;
+        Request nextPending; // used by the combiner to chain unmatched requests
+
+        Request(Request next) {
+            this.next = next;
+        }
+    }
+
+    private static final AtomicIntegerFieldUpdater<FlatCombiningStack> LOCK =
+            AtomicIntegerFieldUpdater.newUpdater(FlatCombiningStack.class, "lock");
+    private static final AtomicReferenceFieldUpdater<FlatCombiningStack, Request> REQUESTS =
+            AtomicReferenceFieldUpdater.newUpdater(FlatCombiningStack.class, Request.class, "requests");
+
+    private volatile int lock;
+    private volatile Request requests;
+    private final ThreadLocal<Request> request = new ThreadLocal<Request>() {
+        @Override
+        protected Request initialValue() {
+            while (true) {
+                Request curHead = requests;
+                Request r = new Request(curHead);
+                if (REQUESTS.compareAndSet(FlatCombiningStack.this, curHead, r)) {
+                    return r;
+                }
+            }
+        }
+    };
+
+    // accessed by the combiner only
+    private int[] items = new int[16];
+    private int size;
+
+    @Override
+    public void push(int x) {
+        Request r = request.get();
+        r.x = x;
+        r.op = PUSH;
+        await(r);
+    }
+
+    @Override
+    public int pop() {
+        Request r = request.get();
+        r.op = POP;
+        await(r);
+        return r.x;
+    }
+
+    @Override
+    public void pushAll(int[] xs) {
+        Request r = request.get();
+        r.xs = xs;
+        r.op = PUSH_ALL;
+        await(r);
+        r.xs = null;
+    }
+
+    @Override
+    public int popMany(int[] dst, int max) {
+        Request r = request.get();
+        r.xs = dst;
+        r.x = Math.min(max, dst.length);
+        r.op = POP_MANY;
+        await(r);
+        r.xs = null;
+        return r.x;
+    }
+
+    private void await(Request r) {
+        while (true) {
+            if (lock == 0 && LOCK.compareAndSet(this, 0, 1)) {
+                try {
+                    combine();
+                } finally {
+                    lock = 0;
+                }
+                return;
+            }
+            for (int i = 0; i < SPINS; i++) {
+                if (r.op == NONE) {
+                    return;
+                }
+            }
+            Thread.yield();
+            if (r.op == NONE) {
+                return;
+            }
+        }
+    }
+
+    private void combine() {
+        Request pushes = null;
+        Request pops = null;
+        for (Request r = requests; r != null; r = r.next) {
+            int op = r.op;
+            if (op == PUSH) {
+                if (pops != null) {
+                    pops.x = r.x;
+                    pops.op = NONE;
+                    pops = pops.nextPending;
+                    r.op = NONE;
+                } else {
+                    r.nextPending = pushes;
+                    pushes = r;
+                }
+            } else if (op == PUSH_ALL) {
+                for (int x : r.xs) {
+                    add(x);
+                }
+                r.op = NONE;
+            } else if (op == POP_MANY) {
+                int[] dst = r.xs;
+                int count = 0;
+                while (count < r.x && size > 0) {
+                    dst[count++] = items[--size];
+                }
+                r.x = count;
+                r.op = NONE;
+            } else if (op == POP) {
+                if (pushes != null) {
+                    r.x = pushes.x;
+                    r.op = NONE;
+                    pushes.op = NONE;
+                    pushes = pushes.nextPending;
+                } else {
+                    r.nextPending = pops;
+                    pops = r;
+                }
+            }
+        }
+        for (; pushes != null; pushes = pushes.nextPending) {
+            add(pushes.x);
+            pushes.op = NONE;
+        }
+        for (; pops != null; pops = pops.nextPending) {
+            pops.x = size > 0 ? items[--size] : Integer.MIN_VALUE;
+            pops.op = NONE;
+        }
+    }
+
+    private void add(int x) {
+        if (size == items.length) {
+            int[] newItems = new int[2 * size];
+            System.arraycopy(items, 0, newItems, 0, size);
+            items = newItems;
+        }
+        items[size++] = x;
+    }
+}
@@ -4,7 +4,7 @@ import kotlinx.atomicfu.AtomicRef;
 
 public class MSQueue implements Queue {
     private class Node {
-        final int x;
+        int x;
         AtomicRef<Node> next;
 
         Node(int x, Node next) {
@@ -15,23 +15,38 @@ public class MSQueue implements Queue {
 
     private AtomicRef<Node> head;
     private AtomicRef<Node> tail;
+    private final EpochReclaimer<Node> reclaimer;
 
     public MSQueue() {
+        this(false);
+    }
+
+    /**
+     * @param recycleNodes whether nodes removed from the queue should be
+     *                     reused by subsequent enqueues, see {@link EpochReclaimer}
+     */
+    public MSQueue(boolean recycleNodes) {
         Node dummy = new Node(0, null);
         this.head = new AtomicRef<>(dummy);
         this.tail = new AtomicRef<>(dummy);
+        this.reclaimer = recycleNodes ? new EpochReclaimer<Node>() : null;
     }
 
     @Override
     public void enqueue(int x) {
-        Node newTail = new Node(x, null);
-        while (true) {
-            goMyTail();
-            Node val = tail.getValue();
-            if (val.next.compareAndSet(null, newTail)) {
-                tail.compareAndSet(val, newTail);
-                return;
+        EpochReclaimer.Record r = enter();
+        try {
+            Node newTail = newNode(r, x, null);
+            while (true) {
+                goMyTail();
+                Node val = tail.getValue();
+                if (val.next.compareAndSet(null, newTail)) {
+                    tail.compareAndSet(val, newTail);
+                    return;
+                }
             }
+        } finally {
+            exit(r);
         }
     }
 
@@ -47,55 +62,92 @@ public class MSQueue implements Queue {
 
     @Override
     public int dequeue() {
-        while (true) {
-            Node curHead = head.getValue();
-            goMyTail();
-            Node curTail = tail.getValue();
-            if (tail.compareAndSet(curTail, curTail)) {
-                if (head.compareAndSet(curHead, curHead)) {
-                    if (curHead == curTail || curHead.next.getValue() == null) {
-                        return Integer.MIN_VALUE;
+        EpochReclaimer.Record r = enter();
+        try {
+            while (true) {
+                Node curHead = head.getValue();
+                goMyTail();
+                Node curTail = tail.getValue();
+                if (tail.compareAndSet(curTail, curTail)) {
+                    if (head.compareAndSet(curHead, curHead)) {
+                        if (curHead == curTail || curHead.next.getValue() == null) {
+                            return Integer.MIN_VALUE;
+                        }
+                    } else {
+                        continue;
                     }
                 } else {
                     continue;
                 }
-            } else {
-                continue;
-            }
-            Node nextHead = curHead.next.getValue();
-            if (head.compareAndSet(curHead, nextHead)) {
-                if (nextHead == null) {
-                    return Integer.MIN_VALUE;
+                Node nextHead = curHead.next.getValue();
+                if (head.compareAndSet(curHead, nextHead)) {
+                    if (nextHead == null) {
+                        return Integer.MIN_VALUE;
+                    }
+                    retire(r, curHead);
+                    return nextHead.x;
                 }
-                return nextHead.x;
             }
+        } finally {
+            exit(r);
         }
     }
 
     @Override
     public int peek() {
-        while (true) {
-            Node curHead = head.getValue();
-            Node nextHead = curHead.next.getValue();
-            goMyTail();
-            Node curTail = tail.getValue();
-            if (tail.compareAndSet(curTail, curTail)) {
-                if (head.compareAndSet(curHead, curHead)) {
-                    if (curHead == curTail || curHead.next.getValue() == null) {
-                        return Integer.MIN_VALUE;
+        EpochReclaimer.Record r = enter();
+        try {
+            while (true) {
+                Node curHead = head.getValue();
+                Node nextHead = curHead.next.getValue();
+                goMyTail();
+                Node curTail = tail.getValue();
+                if (tail.compareAndSet(curTail, curTail)) {
+                    if (head.compareAndSet(curHead, curHead)) {
+                        if (curHead == curTail || curHead.next.getValue() == null) {
+                            return Integer.MIN_VALUE;
+                        }
+                    } else {
+                        continue;
                     }
                 } else {
                     continue;
                 }
-            } else {
-                continue;
-            }
-            if (head.compareAndSet(curHead, curHead)) {
-                if (nextHead == null) {
-                    return Integer.MIN_VALUE;
+                if (head.compareAndSet(curHead, curHead)) {
+                    if (nextHead == null) {
+                        return Integer.MIN_VALUE;
+                    }
+                    return nextHead.x;
                 }
-                return nextHead.x;
             }
+        } finally {
+            exit(r);
+        }
+    }
+
+    private EpochReclaimer.Record enter() {
+        return reclaimer != null ? reclaimer.enter() : null;
+    }
+
+    private void exit(EpochReclaimer.Record r) {
+        if (r != null) {
+            reclaimer.exit(r);
+        }
+    }
+
+    private Node newNode(EpochReclaimer.Record r, int x, Node next) {
+        Node node = r != null ? reclaimer.allocate(r) : null;
+        if (node == null) {
+            return new Node(x, next);
+        }
+        node.x = x;
+        node.next.setValue(next);
+        return node;
+    }
+
+    private void retire(EpochReclaimer.Record r, Node node) {
+        if (r != null) {
+            reclaimer.retire(r, node);
         }
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package stack;
 
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
@@ -21,7 +22,15 @@ public class MSQueueBenchmark {
     @Param({"1", "10", "50", "100"})
     public int work = 0;
 
-    private final Queue s = new MSQueue();
+    @Param({"false", "true"})
+    public boolean recycle;
+
+    private Queue s;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        s = new MSQueue(recycle);
+    }
 
     @Group("queue")
     @Benchmark
@@ -45,6 +54,7 @@ public class MSQueueBenchmark {
                 .include(MSQueueBenchmark.class.getSimpleName())
                 .forks(1)
                 .threads(4) // CHANGE ME!
+                .addProfiler(GCProfiler.class)
                 .build();
         new Runner(opt).run();
     }
@@ -0,0 +1,169 @@
+package stack;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Relaxed stack made of several Treiber sub-stacks.
+ * <p>
+ * Every thread is assigned a sub-stack on its first operation. It pushes onto that
+ * sub-stack and pops from it first; only when it is empty does the thread steal from
+ * the others, starting from a random victim and sweeping all of them once.
+ * <p>
+ * Relaxation: a pop returns the top element of some sub-stack, not necessarily the
+ * top of the whole stack. The elements more recent than the one it returns are all on
+ * the other sub-stacks, so with {@code S} sub-stacks of depth at most {@code D} a pop
+ * skips at most {@code (S - 1) * D} elements. The depth of a sub-stack is not bounded
+ * though, as a thread may push any number of elements that the others never pop, so
+ * neither is the distance from the top. What a pop does guarantee is that the elements
+ * of each sub-stack, in particular the ones pushed by a single thread, come off in LIFO
+ * order, and that the own sub-stack is popped first, so a thread which pushes and pops
+ * in turn on an uncontended sub-stack sees an exact stack. {@link Integer#MIN_VALUE}
+ * is returned only after every sub-stack was found empty, though an element pushed
+ * onto a sub-stack after it was checked may be missed.
+ */
+public class RelaxedStack implements Stack {
+    private static final int PADDING = 16; // references per cache line with compressed references
+
+    private static class Node {
+        final int x;
+        Node next; // written before the node is published by a CAS on the head
+
+        Node(int x, Node next) {
+            this.x = x;
+            this.next = next;
+        }
+    }
+
+    private final int mask;
+    private final AtomicReferenceArray<Node> heads;
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final ThreadLocal<Integer> shard = new ThreadLocal<Integer>() {
+        @Override
+        protected Integer initialValue() {
+            return nextShard.getAndIncrement() & mask;
+        }
+    };
+
+    public RelaxedStack() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param shards the minimal number of sub-stacks, rounded up to a power of two
+     */
+    public RelaxedStack(int shards) {
+        int n = 1;
+        while (n < shards) {
+            n <<= 1;
+        }
+        this.mask = n - 1;
+        this.heads = new AtomicReferenceArray<>(n * PADDING);
+    }
+
+    @Override
+    public void push(int x) {
+        Node node = new Node(x, null);
+        splice(shard.get(), node, node);
+    }
+
+    @Override
+    public void pushAll(int[] xs) {
+        if (xs.length == 0) {
+            return;
+        }
+        Node bottom = new Node(xs[0], null);
+        Node top = bottom;
+        for (int i = 1; i < xs.length; i++) {
+            top = new Node(xs[i], top);
+        }
+        splice(shard.get(), top, bottom);
+    }
+
+    @Override
+    public int pop() {
+        int own = shard.get();
+        Node node = pop(own);
+        if (node != null) {
+            return node.x;
+        }
+        int start = ThreadLocalRandom.current().nextInt(mask + 1);
+        for (int i = 0; i <= mask; i++) {
+            int victim = (start + i) & mask;
+            if (victim != own && (node = pop(victim)) != null) {
+                return node.x;
+            }
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    @Override
+    public int popMany(int[] dst, int max) {
+        max = Math.min(max, dst.length);
+        if (max <= 0) {
+            return 0;
+        }
+        int own = shard.get();
+        int count = popMany(own, dst, max);
+        if (count > 0) {
+            return count;
+        }
+        int start = ThreadLocalRandom.current().nextInt(mask + 1);
+        for (int i = 0; i <= mask; i++) {
+            int victim = (start + i) & mask;
+            if (victim != own && (count = popMany(victim, dst, max)) > 0) {
+                return count;
+            }
+        }
+        return 0;
+    }
+
+    private void splice(int shard, Node top, Node bottom) {
+        int index = shard * PADDING;
+        while (true) {
+            Node val = heads.get(index);
+            bottom.next = val;
+            if (heads.compareAndSet(index, val, top)) {
+                return;
+            }
+        }
+    }
+
+    private Node pop(int shard) {
+        int index = shard * PADDING;
+        while (true) {
+            Node curHead = heads.get(index);
+            if (curHead == null) {
+                return null;
+            }
+            if (heads.compareAndSet(index, curHead, curHead.next)) {
+                return curHead;
+            }
+        }
+    }
+
+    private int popMany(int shard, int[] dst, int max) {
+        int index = shard * PADDING;
+        while (true) {
+            Node curHead = heads.get(index);
+            if (curHead == null) {
+                return 0;
+            }
+            Node last = curHead;
+            int count = 1;
+            while (count < max && last.next != null) {
+                last = last.next;
+                count++;
+            }
+            if (heads.compareAndSet(index, curHead, last.next)) {
+                Node node = curHead;
+                for (int i = 0; i < count; i++) {
+                    dst[i] = node.x;
+                    node = node.next;
+                }
+                return count;
+            }
+        }
+    }
+}
@@ -13,4 +13,19 @@ public interface Stack {
      * if this stack is empty.
      */
     int pop();
+
+    /**
+     * Pushes elements {@code xs[0]}, ..., {@code xs[xs.length - 1]} onto the top of this stack
+     * in this order, so that the last one ends up on the top.
+     */
+    void pushAll(int[] xs);
+
+    /**
+     * Removes at most {@code max} elements from the top of this stack and stores them
+     * into {@code dst} starting at index 0, the top one first.
+     * At least one element is removed unless this stack is empty.
+     *
+     * @return the number of removed elements
+     */
+    int popMany(int[] dst, int max);
 }
@@ -2,50 +2,372 @@ package stack;
 
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 
+import java.util.Deque;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
-@OutputTimeUnit(TimeUnit.NANOSECONDS)
+/**
+ * Stack benchmark suite.
+ * <p>
+ * Groups {@code pushHeavy}, {@code popHeavy} and {@code balanced} run pushers and poppers
+ * in the ratios 3:1, 1:3 and 2:2, while in {@code pushPop} every thread pushes and then
+ * pops, so that the stacks with per-thread state, like {@link RelaxedStack}, mostly hit
+ * their own part; {@link #main(String[])} sweeps the thread count and the ratios instead
+ * and writes the results as JSON. Every benchmark reports both the throughput and the
+ * latency distribution; the elimination counters of {@code InstrumentedStackImpl} are
+ * reported by {@link EliminationBenchmark}. A plain Treiber stack without elimination
+ * and {@code ConcurrentLinkedDeque} are measured under the same workload as baselines.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
 @Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
 @Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
-@BenchmarkMode(Mode.AverageTime)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
 @Fork(1)
 @State(Scope.Benchmark)
 public class StackBenchmark {
     @Param({"1", "10", "50", "100"})
     public int work = 0;
 
-    private final Stack s = new StackImpl();
+    @Param({"TreiberStack", "StackImpl", "RecyclingStackImpl", "InstrumentedStackImpl", "FlatCombiningStack",
+            "RelaxedStack", "ArrayStack", "ConcurrentLinkedDeque"})
+    public String stack;
+
+    @Param({"16"})
+    public int batch;
+
+    private Stack s;
+    private ArrayStack bounded; // the same stack as s if it is bounded
+
+    @State(Scope.Thread)
+    public static class Buffer {
+        int[] xs;
+
+        @Setup(Level.Trial)
+        public void setUp(StackBenchmark benchmark) {
+            xs = new int[benchmark.batch];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (stack) {
+        case "TreiberStack":
+            s = new TreiberStack();
+            break;
+        case "StackImpl":
+            s = new StackImpl();
+            break;
+        case "RecyclingStackImpl":
+            s = new StackImpl(true);
+            break;
+        case "InstrumentedStackImpl":
+            s = new StackImpl(false, true);
+            break;
+        case "FlatCombiningStack":
+            s = new FlatCombiningStack();
+            break;
+        case "RelaxedStack":
+            s = new RelaxedStack();
+            break;
+        case "ArrayStack":
+            bounded = new ArrayStack(ArrayStack.MAX_CAPACITY);
+            s = bounded;
+            break;
+        case "ConcurrentLinkedDeque":
+            s = new JdkStack(new ConcurrentLinkedDeque<Integer>());
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown stack: " + stack);
+        }
+    }
 
     @Group("stack")
     @Benchmark
-    public void push() {
-        Random r = ThreadLocalRandom.current();
-        Blackhole.consumeCPU(r.nextInt(work));
-        s.push(r.nextInt());
+    public void push(Control control) {
+        produce(control);
     }
 
     @Group("stack")
     @Benchmark
     public int pop() {
+        return consume();
+    }
+
+    @Group("pushHeavy")
+    @GroupThreads(3)
+    @Benchmark
+    public void pushHeavyPush(Control control) {
+        produce(control);
+    }
+
+    @Group("pushHeavy")
+    @GroupThreads(1)
+    @Benchmark
+    public int pushHeavyPop() {
+        return consume();
+    }
+
+    @Group("popHeavy")
+    @GroupThreads(1)
+    @Benchmark
+    public void popHeavyPush(Control control) {
+        produce(control);
+    }
+
+    @Group("popHeavy")
+    @GroupThreads(3)
+    @Benchmark
+    public int popHeavyPop() {
+        return consume();
+    }
+
+    @Group("balanced")
+    @GroupThreads(2)
+    @Benchmark
+    public void balancedPush(Control control) {
+        produce(control);
+    }
+
+    @Group("balanced")
+    @GroupThreads(2)
+    @Benchmark
+    public int balancedPop() {
+        return consume();
+    }
+
+    @Benchmark
+    public int pushPop(Control control) {
+        produce(control);
+        return consume();
+    }
+
+    private void produce(Control control) {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        push(r.nextInt(), control);
+    }
+
+    /**
+     * Waits for room in a bounded stack, giving up only when the measurement is over,
+     * since the poppers may have stopped by then.
+     */
+    private void push(int x, Control control) {
+        if (bounded == null) {
+            s.push(x);
+            return;
+        }
+        while (!bounded.offer(x) && !control.stopMeasurement) {
+            Thread.yield();
+        }
+    }
+
+    private int consume() {
         Random r = ThreadLocalRandom.current();
         Blackhole.consumeCPU(r.nextInt(work));
         return s.pop();
     }
 
+    @Group("batch")
+    @Benchmark
+    public void pushAll(Buffer buffer, Control control) {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        int[] xs = buffer.xs;
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = r.nextInt();
+        }
+        if (bounded == null) {
+            s.pushAll(xs);
+            return;
+        }
+        for (int x : xs) {
+            push(x, control);
+        }
+    }
+
+    @Group("batch")
+    @Benchmark
+    public int popMany(Buffer buffer) {
+        Random r = ThreadLocalRandom.current();
+        Blackhole.consumeCPU(r.nextInt(work));
+        return s.popMany(buffer.xs, buffer.xs.length);
+    }
 
+    /**
+     * Runs the {@code stack} group with 1:N-1, N-1:1 and N/2:N/2 pushers and poppers and
+     * {@code pushPop} with N threads for every N from 2 up to twice the number of available
+     * processors, doubling N. The results of every run are written to
+     * {@code StackBenchmark-<pushers>x<poppers>.json} and {@code StackBenchmark-pushPop-<N>.json}
+     * in the working directory.
+     */
     public static void main(String[] args) throws RunnerException {
-        Options opt = new OptionsBuilder()
-                .include(StackBenchmark.class.getSimpleName())
-                .forks(1)
-                .threads(4) // CHANGE ME!
-                .build();
-        new Runner(opt).run();
+        int maxThreads = 2 * Runtime.getRuntime().availableProcessors();
+        for (int threads = 2; threads <= maxThreads; threads *= 2) {
+            // {pushers, poppers}
+            int[][] ratios = threads == 2
+                    ? new int[][]{{1, 1}}
+                    : new int[][]{{1, threads - 1}, {threads - 1, 1}, {threads / 2, threads - threads / 2}};
+            for (int[] ratio : ratios) {
+                Options opt = new OptionsBuilder()
+                        .include("^" + StackBenchmark.class.getName() + ".stack$")
+                        .forks(1)
+                        // JMH orders the members of a group by name: pop, then push
+                        .threadGroups(ratio[1], ratio[0])
+                        .addProfiler(GCProfiler.class)
+                        .resultFormat(ResultFormatType.JSON)
+                        .result(StackBenchmark.class.getSimpleName() + "-" + ratio[0] + "x" + ratio[1] + ".json")
+                        .build();
+                new Runner(opt).run();
+            }
+            Options opt = new OptionsBuilder()
+                    .include("^" + StackBenchmark.class.getName() + ".pushPop$")
+                    .forks(1)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(StackBenchmark.class.getSimpleName() + "-pushPop-" + threads + ".json")
+                    .build();
+            new Runner(opt).run();
+        }
+    }
+
+    /**
+     * Treiber stack without elimination, the baseline for {@link StackImpl}.
+     */
+    static class TreiberStack implements Stack {
+        private static class Node {
+            final int x;
+            Node next;
+
+            Node(int x) {
+                this.x = x;
+            }
+        }
+
+        private final AtomicReference<Node> head = new AtomicReference<>();
+
+        @Override
+        public void push(int x) {
+            Node node = new Node(x);
+            splice(node, node);
+        }
+
+        @Override
+        public void pushAll(int[] xs) {
+            if (xs.length == 0) {
+                return;
+            }
+            Node bottom = new Node(xs[0]);
+            Node top = bottom;
+            for (int i = 1; i < xs.length; i++) {
+                Node node = new Node(xs[i]);
+                node.next = top;
+                top = node;
+            }
+            splice(top, bottom);
+        }
+
+        @Override
+        public int pop() {
+            while (true) {
+                Node curHead = head.get();
+                if (curHead == null) {
+                    return Integer.MIN_VALUE;
+                }
+                if (head.compareAndSet(curHead, curHead.next)) {
+                    return curHead.x;
+                }
+            }
+        }
+
+        @Override
+        public int popMany(int[] dst, int max) {
+            max = Math.min(max, dst.length);
+            if (max <= 0) {
+                return 0;
+            }
+            while (true) {
+                Node curHead = head.get();
+                if (curHead == null) {
+                    return 0;
+                }
+                Node last = curHead;
+                int count = 1;
+                while (count < max && last.next != null) {
+                    last = last.next;
+                    count++;
+                }
+                if (head.compareAndSet(curHead, last.next)) {
+                    Node node = curHead;
+                    for (int i = 0; i < count; i++) {
+                        dst[i] = node.x;
+                        node = node.next;
+                    }
+                    return count;
+                }
+            }
+        }
+
+        private void splice(Node top, Node bottom) {
+            while (true) {
+                Node curHead = head.get();
+                bottom.next = curHead;
+                if (head.compareAndSet(curHead, top)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adapter of a {@link Deque} for baseline measurements.
+     * Batch operations are not atomic.
+     */
+    static class JdkStack implements Stack {
+        private final Deque<Integer> deque;
+
+        JdkStack(Deque<Integer> deque) {
+            this.deque = deque;
+        }
+
+        @Override
+        public void push(int x) {
+            deque.offerFirst(x);
+        }
+
+        @Override
+        public int pop() {
+            Integer x = deque.pollFirst();
+            return x == null ? Integer.MIN_VALUE : x;
+        }
+
+        @Override
+        public void pushAll(int[] xs) {
+            for (int x : xs) {
+                deque.offerFirst(x);
+            }
+        }
+
+        @Override
+        public int popMany(int[] dst, int max) {
+            max = Math.min(max, dst.length);
+            int count = 0;
+            Integer x;
+            while (count < max && (x = deque.pollFirst()) != null) {
+                dst[count++] = x;
+            }
+            return count;
+        }
     }
 }
@@ -2,108 +2,216 @@ package stack;
 
 import kotlinx.atomicfu.AtomicRef;
 
-import java.util.Random;
-
-
 public class StackImpl implements Stack {
     private static class Node {
-        final AtomicRef<Node> next;
-        final int x;
+        Node next; // written before the node is published by a CAS on the head
+        int x;
 
         Node(int x, Node next) {
-            this.next = new AtomicRef<>(next);
+            this.next = next;
             this.x = x;
         }
     }
 
-    final int SIZE = 10;
-
     StackImpl() {
-        for (int i = 0; i < SIZE; i++) {
-            tasks[i] = new AtomicRef<>(null);
-        }
+        this(false);
+    }
+
+    /**
+     * @param recycleNodes whether popped nodes should be reused
+     *                     by subsequent pushes, see {@link EpochReclaimer}
+     */
+    StackImpl(boolean recycleNodes) {
+        this(recycleNodes, false);
+    }
+
+    /**
+     * @param recycleNodes whether popped nodes should be reused
+     *                     by subsequent pushes, see {@link EpochReclaimer}
+     * @param collectMetrics whether the events reported by {@link #metrics()} should be counted;
+     *                       if not, the only cost of the instrumentation is a never taken branch per event
+     */
+    StackImpl(boolean recycleNodes, boolean collectMetrics) {
+        int slots = 2 * Runtime.getRuntime().availableProcessors();
+        counters = collectMetrics ? new EliminationCounters(slots) : null;
+        elimination = new EliminationArray<>(slots, counters);
+        reclaimer = recycleNodes ? new EpochReclaimer<Node>() : null;
     }
 
     // head pointer
-    private AtomicRef<Node>[] tasks = new AtomicRef[SIZE];
     private AtomicRef<Node> head = new AtomicRef<>(null);
+    // operations which fail to update the head try to eliminate each other here
+    private final EliminationArray<Node> elimination;
+    private final EpochReclaimer<Node> reclaimer;
+    private final EliminationCounters counters;
+
+    /**
+     * Returns the events counted by all the threads so far,
+     * or {@code null} if this stack was created without metrics.
+     */
+    public EliminationMetrics metrics() {
+        return counters != null ? counters.snapshot() : null;
+    }
+
+    /**
+     * Returns the events counted by the current thread so far,
+     * or {@code null} if this stack was created without metrics.
+     */
+    public EliminationMetrics threadMetrics() {
+        return counters != null ? counters.get().snapshot() : null;
+    }
 
     @Override
     public void push(int x) {
-        Random rnd = new Random();
-        int pos = ((rnd.nextInt() % SIZE) + SIZE) % SIZE;
-        for (int i = 0; i < 2; i++) {
-            Node node = new Node(x, null);
-            if (tasks[(pos + i) % SIZE].getValue() == null) {
-                if (tasks[(pos + i) % SIZE].compareAndSet(null, node)) {
-                    int y = 0;
-                    for (int j = 0; j < 10; j++) {
-                        y++;
-                    }
-                    if (tasks[(pos + i) % SIZE].compareAndSet(node, null)) {
-                        break;
-                    } else {
-                        return;
-                    }
+        EpochReclaimer.Record r = enter();
+        try {
+            Node node = newNode(r, x);
+            while (true) {
+                Node val = head.getValue();
+                node.next = val;
+                if (casHead(val, node) || elimination.tryPush(node)) {
+                    return;
                 }
             }
-            if (tasks[(pos - i + SIZE) % SIZE].getValue() == null) {
-                if (tasks[(pos - i) % SIZE].compareAndSet(null, node)) {
-                    int y = 0;
-                    for (int j = 0; j < 10; j++) {
-                        y++;
-                    }
-                    if (tasks[(pos - i) % SIZE].compareAndSet(node, null)) {
-                        break;
-                    } else {
-                        return;
-                    }
+        } finally {
+            exit(r);
+        }
+    }
+
+    @Override
+    public int pop() {
+        EpochReclaimer.Record r = enter();
+        try {
+            while (true) {
+                Node curHead = head.getValue();
+                if (curHead == null) return Integer.MIN_VALUE;
+                if (casHead(curHead, curHead.next)) {
+                    return take(r, curHead);
+                }
+                Node node = elimination.tryPop();
+                if (node != null) {
+                    return take(r, node);
                 }
             }
+        } finally {
+            exit(r);
         }
-        while (true) {
-            Node val = head.getValue();
-            Node newHead = new Node(x, val);
-            if (head.compareAndSet(val, newHead)) {
-                return;
+    }
+
+    @Override
+    public void pushAll(int[] xs) {
+        if (xs.length == 0) {
+            return;
+        }
+        EpochReclaimer.Record r = enter();
+        try {
+            Node bottom = newNode(r, xs[0]);
+            Node top = bottom;
+            for (int i = 1; i < xs.length; i++) {
+                Node node = newNode(r, xs[i]);
+                node.next = top;
+                top = node;
             }
+            while (true) {
+                Node val = head.getValue();
+                bottom.next = val;
+                if (casHead(val, top)) {
+                    return;
+                }
+                // hand the bottom element over to a concurrent pop, as if it was pushed alone before the rest
+                if (elimination.tryPush(bottom)) {
+                    if (bottom == top) {
+                        return;
+                    }
+                    Node node = top;
+                    while (node.next != bottom) {
+                        node = node.next;
+                    }
+                    bottom = node;
+                }
+            }
+        } finally {
+            exit(r);
         }
     }
 
     @Override
-    public int pop() {
-        Random rnd = new Random();
-        int pos = ((rnd.nextInt() % SIZE) + SIZE) % SIZE;
-        for (int j = 0; j < 10; j++) {
-            for (int i = 0; i < 2; i++) {
-                if (tasks[(pos + i) % SIZE].getValue() != null) {
-                    Node curNode = tasks[(pos + i) % SIZE].getValue();
-                    if (tasks[(pos + i) % SIZE].compareAndSet(curNode, null)) {
-                        if (curNode != null) {
-                            return curNode.x;
-                        } else {
-                            continue;
-                        }
-                    }
+    public int popMany(int[] dst, int max) {
+        max = Math.min(max, dst.length);
+        if (max <= 0) {
+            return 0;
+        }
+        EpochReclaimer.Record r = enter();
+        try {
+            while (true) {
+                Node curHead = head.getValue();
+                if (curHead == null) return 0;
+                Node last = curHead;
+                int count = 1;
+                while (count < max && last.next != null) {
+                    last = last.next;
+                    count++;
                 }
-                if (tasks[(pos - i + SIZE) % SIZE].getValue() != null) {
-                    Node curNode = tasks[(pos - i + SIZE) % SIZE].getValue();
-                    if (tasks[(pos - i + SIZE) % SIZE].compareAndSet(curNode, null)) {
-                        if (curNode != null) {
-                            return curNode.x;
-                        } else {
-                            continue;
-                        }
+                if (casHead(curHead, last.next)) {
+                    Node node = curHead;
+                    for (int i = 0; i < count; i++) {
+                        Node next = node.next;
+                        dst[i] = take(r, node);
+                        node = next;
                     }
+                    return count;
+                }
+                Node node = elimination.tryPop();
+                if (node != null) {
+                    dst[0] = take(r, node);
+                    return 1;
                 }
             }
+        } finally {
+            exit(r);
         }
-        while (true) {
-            Node curHead = head.getValue();
-            if (curHead == null) return Integer.MIN_VALUE;
-            if (head.compareAndSet(curHead, curHead.next.getValue())) {
-                return curHead.x;
+    }
+
+    private boolean casHead(Node expected, Node update) {
+        boolean success = head.compareAndSet(expected, update);
+        if (counters != null) {
+            EliminationCounters.Stripe stripe = counters.get();
+            if (success) {
+                stripe.casSuccesses++;
+            } else {
+                stripe.casFailures++;
             }
         }
+        return success;
+    }
+
+    private EpochReclaimer.Record enter() {
+        return reclaimer != null ? reclaimer.enter() : null;
+    }
+
+    private void exit(EpochReclaimer.Record r) {
+        if (r != null) {
+            reclaimer.exit(r);
+        }
+    }
+
+    private Node newNode(EpochReclaimer.Record r, int x) {
+        Node node = r != null ? reclaimer.allocate(r) : null;
+        if (node == null) {
+            return new Node(x, null);
+        }
+        node.x = x;
+        return node;
+    }
+
+    /**
+     * Returns the element of the node, which has just been removed from the stack.
+     */
+    private int take(EpochReclaimer.Record r, Node node) {
+        int x = node.x;
+        if (r != null) {
+            reclaimer.retire(r, node);
+        }
+        return x;
     }
 }
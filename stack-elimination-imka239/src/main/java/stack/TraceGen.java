@@ -0,0 +1,54 @@
+package stack;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Generates random traces for {@link TraceReplayBenchmark}.
+ * <p>
+ * Usage: {@code TraceGen file threads opsPerThread [pushPercent [meanIntervalNanos [seed]]]}
+ */
+public class TraceGen {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: TraceGen file threads opsPerThread [pushPercent [meanIntervalNanos [seed]]]");
+            System.exit(1);
+        }
+        File file = new File(args[0]);
+        int threads = Integer.parseInt(args[1]);
+        long ops = Long.parseLong(args[2]);
+        int pushPercent = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+        int meanInterval = args.length > 4 ? Integer.parseInt(args[4]) : 100;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 6439586L;
+        System.out.println("Generating " + threads + " x " + ops + " operations into " + file);
+        generate(file, threads, ops, pushPercent, meanInterval, seed);
+    }
+
+    /**
+     * Writes a trace of {@code threads} streams of {@code ops} operations each. Every operation
+     * is a push of a random value with probability {@code pushPercent}%, otherwise a pop;
+     * the intervals between the operations of a stream are uniform with the given mean.
+     */
+    public static void generate(File file, int threads, long ops, int pushPercent, int meanInterval, long seed)
+            throws IOException {
+        if (pushPercent < 0 || pushPercent > 100) {
+            throw new IllegalArgumentException("Illegal push percent: " + pushPercent);
+        }
+        try (TraceWriter writer = new TraceWriter(file)) {
+            for (int i = 0; i < threads; i++) {
+                TraceWriter.Stream stream = writer.newStream();
+                Random rand = new Random(seed + i);
+                long timestamp = 0;
+                for (long j = 0; j < ops; j++) {
+                    timestamp += rand.nextInt(2 * meanInterval + 1);
+                    if (rand.nextInt(100) < pushPercent) {
+                        stream.record(TraceWriter.PUSH, rand.nextInt(), timestamp);
+                    } else {
+                        stream.record(TraceWriter.POP, 0, timestamp);
+                    }
+                }
+            }
+        }
+    }
+}
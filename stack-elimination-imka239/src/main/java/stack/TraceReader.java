@@ -0,0 +1,163 @@
+package stack;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a trace written by {@link TraceWriter}.
+ * <p>
+ * Every stream of the trace is read through its own {@link Cursor}, which maps the
+ * stream into memory a window of {@value #WINDOW} records at a time, so that traces of
+ * any size can be replayed and reading a record allocates nothing.
+ */
+public class TraceReader implements Closeable {
+    private static final int WINDOW = 1 << 22; // records mapped at once
+
+    /**
+     * Position in a stream of the trace; must not be used by several threads at once.
+     */
+    public class Cursor {
+        private final long offset; // of the first record in the file
+        private final long count;
+        private long index; // of the next record
+        private MappedByteBuffer mapped;
+        private long windowStart; // index of the first mapped record
+        private long windowEnd; // index of the record after the last mapped one
+        private int op;
+        private int arg;
+        private long timestamp;
+
+        private Cursor(long offset, long count) {
+            this.offset = offset;
+            this.count = count;
+        }
+
+        /**
+         * Moves to the next record.
+         *
+         * @return {@code false} if the end of the stream has been reached
+         * @throws IOException if the trace cannot be mapped
+         */
+        public boolean next() throws IOException {
+            if (index == count) {
+                return false;
+            }
+            if (index < windowStart || index >= windowEnd) {
+                windowStart = index;
+                windowEnd = Math.min(count, index + window);
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset + windowStart * TraceWriter.RECORD_SIZE,
+                        (windowEnd - windowStart) * TraceWriter.RECORD_SIZE);
+            }
+            int pos = (int) (index - windowStart) * TraceWriter.RECORD_SIZE;
+            long word = mapped.getLong(pos);
+            op = (int) word & 0xFF;
+            timestamp = word >>> 8;
+            arg = mapped.getInt(pos + 8);
+            index++;
+            return true;
+        }
+
+        /**
+         * Moves back before the first record.
+         */
+        public void rewind() {
+            index = 0;
+        }
+
+        /**
+         * Returns the number of records in the stream.
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Returns the operation of the current record, {@link TraceWriter#PUSH} or {@link TraceWriter#POP}.
+         */
+        public int op() {
+            return op;
+        }
+
+        public int arg() {
+            return arg;
+        }
+
+        /**
+         * Returns the timestamp of the current record, in nanoseconds since the start of the trace.
+         */
+        public long timestamp() {
+            return timestamp;
+        }
+    }
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long[] offsets;
+    private final long[] counts;
+    private final int window;
+
+    /**
+     * @throws IOException if the file cannot be read or is not a trace
+     */
+    public TraceReader(File file) throws IOException {
+        this(file, WINDOW);
+    }
+
+    TraceReader(File file, int window) throws IOException {
+        this.window = window;
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        try {
+            if (this.file.readInt() != TraceWriter.MAGIC) {
+                throw new IOException("Not a trace: " + file);
+            }
+            int streams = this.file.readInt();
+            offsets = new long[streams];
+            counts = new long[streams];
+            ByteBuffer header = ByteBuffer.allocate(16 * streams);
+            while (header.hasRemaining()) {
+                if (channel.read(header, 8 + header.position()) < 0) {
+                    throw new IOException("Truncated trace: " + file);
+                }
+            }
+            header.flip();
+            for (int i = 0; i < streams; i++) {
+                offsets[i] = header.getLong();
+                counts[i] = header.getLong();
+                if (offsets[i] + counts[i] * TraceWriter.RECORD_SIZE > channel.size()) {
+                    throw new IOException("Truncated trace: " + file);
+                }
+            }
+        } catch (IOException e) {
+            this.file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of streams in the trace.
+     */
+    public int streams() {
+        return offsets.length;
+    }
+
+    /**
+     * Creates a cursor positioned before the first record of the given stream.
+     */
+    public Cursor cursor(int stream) {
+        return new Cursor(offsets[stream], counts[stream]);
+    }
+
+    /**
+     * Closes the file; the windows already mapped by the cursors stay readable.
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
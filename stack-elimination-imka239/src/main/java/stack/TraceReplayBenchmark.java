@@ -0,0 +1,194 @@
+package stack;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replays a trace written by {@link TraceWriter} against a stack or a queue, one
+ * operation per invocation. Every benchmark thread replays its own stream of the trace,
+ * from the beginning again when it reaches the end.
+ * <p>
+ * The trace is given by the {@code trace} parameter; if it is empty, a random trace
+ * with a stream per benchmark thread is generated by {@link TraceGen}. With
+ * {@code paced}, every operation waits until its timestamp, relative to the moment the
+ * thread started its stream, so that the recorded rate of the operations is reproduced.
+ */
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TraceReplayBenchmark {
+    @Param({""})
+    public String trace;
+
+    @Param({"1000000"})
+    public long ops;
+
+    @Param({"false"})
+    public boolean paced;
+
+    @Param({"StackImpl", "ArrayStack", "FlatCombiningStack", "RelaxedStack", "MSQueue"})
+    public String target;
+
+    /**
+     * Structure the operations are replayed against.
+     */
+    abstract static class Target {
+        abstract void push(int x, Control control);
+
+        abstract int pop();
+
+        static Target of(final Stack s) {
+            return new Target() {
+                @Override
+                void push(int x, Control control) {
+                    s.push(x);
+                }
+
+                @Override
+                int pop() {
+                    return s.pop();
+                }
+            };
+        }
+
+        /**
+         * Waits for room when the stack is full, giving up only when the measurement
+         * is over, since the other threads may have stopped popping by then.
+         */
+        static Target of(final ArrayStack s) {
+            return new Target() {
+                @Override
+                void push(int x, Control control) {
+                    while (!s.offer(x) && !control.stopMeasurement) {
+                        Thread.yield();
+                    }
+                }
+
+                @Override
+                int pop() {
+                    return s.pop();
+                }
+            };
+        }
+
+        static Target of(final Queue q) {
+            return new Target() {
+                @Override
+                void push(int x, Control control) {
+                    q.enqueue(x);
+                }
+
+                @Override
+                int pop() {
+                    return q.dequeue();
+                }
+            };
+        }
+    }
+
+    private File generated;
+    private TraceReader reader;
+    private Target t;
+    private final AtomicInteger nextStream = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class Replayer {
+        TraceReader.Cursor cursor;
+        long start; // when the stream was started, in System.nanoTime()
+
+        @Setup(Level.Trial)
+        public void setUp(TraceReplayBenchmark benchmark) {
+            TraceReader reader = benchmark.reader;
+            cursor = reader.cursor(benchmark.nextStream.getAndIncrement() % reader.streams());
+            if (cursor.count() == 0) {
+                throw new IllegalArgumentException("Empty stream in trace " + benchmark.trace);
+            }
+            start = System.nanoTime();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkParams params) throws IOException {
+        File file;
+        if (trace.isEmpty()) {
+            generated = File.createTempFile("replay", ".trace");
+            TraceGen.generate(generated, params.getThreads(), ops, 50, 100, 6439586L);
+            file = generated;
+        } else {
+            file = new File(trace);
+        }
+        reader = new TraceReader(file);
+        switch (target) {
+        case "StackImpl":
+            t = Target.of(new StackImpl());
+            break;
+        case "ArrayStack":
+            t = Target.of(new ArrayStack(ArrayStack.MAX_CAPACITY));
+            break;
+        case "FlatCombiningStack":
+            t = Target.of(new FlatCombiningStack());
+            break;
+        case "RelaxedStack":
+            t = Target.of(new RelaxedStack());
+            break;
+        case "MSQueue":
+            t = Target.of(new MSQueue());
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown target: " + target);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        reader.close();
+        if (generated != null && !generated.delete()) {
+            generated.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public int replay(Replayer replayer, Control control) throws IOException {
+        TraceReader.Cursor cursor = replayer.cursor;
+        if (!cursor.next()) {
+            cursor.rewind();
+            cursor.next();
+            replayer.start = System.nanoTime();
+        }
+        if (paced) {
+            long due = replayer.start + cursor.timestamp();
+            while (System.nanoTime() - due < 0) {
+                // wait for the recorded time of the operation
+            }
+        }
+        if (cursor.op() == TraceWriter.PUSH) {
+            t.push(cursor.arg(), control);
+            return 0;
+        }
+        return t.pop();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(TraceReplayBenchmark.class.getSimpleName())
+                .forks(1)
+                .threads(4)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,164 @@
+package stack;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a binary trace of stack or queue operations, to be replayed by {@link TraceReader}.
+ * <p>
+ * A trace consists of independent streams, one per recorded thread. Every thread
+ * records into its own {@link Stream}, which spools the records into a temporary file
+ * next to the trace; {@link #close()} then concatenates the streams into the trace.
+ * <p>
+ * Trace layout: {@value #MAGIC}, the number of streams, the offset and the number of
+ * records of every stream, then the records. A record takes {@value #RECORD_SIZE} bytes:
+ * the timestamp in nanoseconds since the trace was started (56 bits) with the operation
+ * (8 bits), then the argument.
+ */
+public class TraceWriter implements Closeable {
+    // operations
+    /**
+     * Push onto a stack or enqueue into a queue the argument.
+     */
+    public static final int PUSH = 0;
+    /**
+     * Pop from a stack or dequeue from a queue; the argument is ignored.
+     */
+    public static final int POP = 1;
+
+    static final int MAGIC = 0x54524331; // "TRC1"
+    static final int RECORD_SIZE = 12;
+    static final long MAX_TIMESTAMP = (1L << 56) - 1;
+
+    private static final int BUFFER_SIZE = 1 << 16; // must be a multiple of RECORD_SIZE
+
+    /**
+     * Records of a single thread; must not be used by several threads at once.
+     */
+    public class Stream {
+        private final File file;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE / RECORD_SIZE * RECORD_SIZE);
+        private long count;
+
+        private Stream(File file) throws IOException {
+            this.file = file;
+            this.channel = new RandomAccessFile(file, "rw").getChannel();
+        }
+
+        /**
+         * Records the operation, timestamped with the time elapsed since the trace was started.
+         *
+         * @throws IOException if the spool file cannot be written
+         */
+        public void record(int op, int arg) throws IOException {
+            record(op, arg, System.nanoTime() - startTime);
+        }
+
+        /**
+         * Records the operation with the given timestamp, in nanoseconds since the
+         * start of the trace. The timestamps of a stream should not decrease.
+         *
+         * @throws IOException if the spool file cannot be written
+         */
+        public void record(int op, int arg, long timestamp) throws IOException {
+            if (op != PUSH && op != POP) {
+                throw new IllegalArgumentException("Unknown operation: " + op);
+            }
+            if (timestamp < 0 || timestamp > MAX_TIMESTAMP) {
+                throw new IllegalArgumentException("Illegal timestamp: " + timestamp);
+            }
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.putLong(timestamp << 8 | op);
+            buffer.putInt(arg);
+            count++;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    private final File file;
+    private final long startTime = System.nanoTime();
+    private final List<Stream> streams = new ArrayList<>();
+    private boolean closed; // guarded by streams
+
+    /**
+     * @param file the trace file, overwritten on {@link #close()}
+     */
+    public TraceWriter(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Creates a stream for the calling thread.
+     *
+     * @throws IOException if the spool file cannot be created
+     */
+    public Stream newStream() throws IOException {
+        synchronized (streams) {
+            if (closed) {
+                throw new IllegalStateException("Trace is closed");
+            }
+            File spool = File.createTempFile(file.getName(), ".stream", file.getAbsoluteFile().getParentFile());
+            Stream stream = new Stream(spool);
+            streams.add(stream);
+            return stream;
+        }
+    }
+
+    /**
+     * Writes the trace file from the streams, which must not be used anymore.
+     *
+     * @throws IOException if the trace file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (streams) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try (FileChannel out = new RandomAccessFile(file, "rw").getChannel()) {
+                out.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(8 + 16 * streams.size());
+                header.putInt(MAGIC).putInt(streams.size());
+                long offset = header.capacity();
+                for (Stream stream : streams) {
+                    header.putLong(offset).putLong(stream.count);
+                    offset += stream.count * RECORD_SIZE;
+                }
+                header.flip();
+                while (header.hasRemaining()) {
+                    out.write(header);
+                }
+                for (Stream stream : streams) {
+                    stream.flush();
+                    long size = stream.count * RECORD_SIZE;
+                    for (long pos = 0; pos < size; ) {
+                        pos += stream.channel.transferTo(pos, size - pos, out);
+                    }
+                }
+            } finally {
+                for (Stream stream : streams) {
+                    stream.channel.close();
+                    Files.deleteIfExists(stream.file.toPath());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package stack;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ArrayStackTest {
+    private static final int CAPACITY = 4;
+    private static final int PUSHERS = 2;
+    private static final int POPPERS = 2;
+    private static final int N = 200_000;
+
+    /**
+     * Pushers retry {@link ArrayStack#offer(int)} on a tiny stack until it succeeds,
+     * so that most of the offers find it full; every offered element has to be popped
+     * exactly once.
+     */
+    @Test
+    public void testConcurrentOffer() throws InterruptedException {
+        final int total = CAPACITY + PUSHERS * N;
+        final ArrayStack stack = new ArrayStack(CAPACITY);
+        final AtomicIntegerArray taken = new AtomicIntegerArray(total);
+        final AtomicInteger popped = new AtomicInteger();
+        for (int i = 0; i < CAPACITY; i++) {
+            stack.push(PUSHERS * N + i);
+        }
+        assertFalse(stack.offer(-1));
+        Thread[] threads = new Thread[PUSHERS + POPPERS];
+        for (int t = 0; t < PUSHERS; t++) {
+            final int id = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < N; i++) {
+                        while (!stack.offer(i * PUSHERS + id)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+        }
+        for (int t = PUSHERS; t < PUSHERS + POPPERS; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    int[] dst = new int[2];
+                    long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+                    for (int k = 0; popped.get() < total && System.nanoTime() < deadline; k++) {
+                        int count;
+                        if (k % 2 == 0) {
+                            dst[0] = stack.pop();
+                            count = dst[0] == Integer.MIN_VALUE ? 0 : 1;
+                        } else {
+                            count = stack.popMany(dst, dst.length);
+                        }
+                        for (int j = 0; j < count; j++) {
+                            taken.incrementAndGet(dst[j]);
+                        }
+                        if (count == 0) {
+                            Thread.yield();
+                        }
+                        popped.addAndGet(count);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int x = 0; x < total; x++) {
+            assertEquals(1, taken.get(x));
+        }
+        assertEquals(total, popped.get());
+        assertEquals(Integer.MIN_VALUE, stack.pop());
+    }
+}
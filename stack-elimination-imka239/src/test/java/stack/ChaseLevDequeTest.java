@@ -0,0 +1,88 @@
+package stack;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+
+public class ChaseLevDequeTest {
+    private static final int THIEVES = 3;
+    private static final int N = 1_000_000;
+
+    @Test
+    public void testSequential() {
+        Random r = new Random(0);
+        ChaseLevDeque deque = new ChaseLevDeque();
+        Deque<Integer> javaDeque = new ArrayDeque<>();
+        for (int i = 0; i < N; i++) {
+            switch (r.nextInt(3)) {
+            case 0:
+                deque.push(i);
+                javaDeque.addLast(i);
+                break;
+            case 1:
+                assertEquals(javaDeque.isEmpty() ? Integer.MIN_VALUE : javaDeque.pollLast(), deque.pop());
+                break;
+            case 2:
+                assertEquals(javaDeque.isEmpty() ? Integer.MIN_VALUE : javaDeque.pollFirst(), deque.steal());
+                break;
+            }
+            assertEquals(javaDeque.size(), deque.size());
+        }
+    }
+
+    @Test
+    public void testSteal() throws InterruptedException {
+        final ChaseLevDeque deque = new ChaseLevDeque();
+        final AtomicIntegerArray taken = new AtomicIntegerArray(N);
+        final boolean[] done = {false};
+        Thread[] thieves = new Thread[THIEVES];
+        for (int t = 0; t < THIEVES; t++) {
+            thieves[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (true) {
+                        int x = deque.steal();
+                        if (x != Integer.MIN_VALUE) {
+                            taken.incrementAndGet(x);
+                        } else {
+                            synchronized (done) {
+                                if (done[0]) {
+                                    return;
+                                }
+                            }
+                        }
+                    }
+                }
+            });
+            thieves[t].start();
+        }
+        Random r = new Random(0);
+        for (int i = 0; i < N; i++) {
+            deque.push(i);
+            if (r.nextBoolean()) {
+                int x = deque.pop();
+                if (x != Integer.MIN_VALUE) {
+                    taken.incrementAndGet(x);
+                }
+            }
+        }
+        synchronized (done) {
+            done[0] = true;
+        }
+        for (Thread thief : thieves) {
+            thief.join();
+        }
+        int x;
+        while ((x = deque.pop()) != Integer.MIN_VALUE) {
+            taken.incrementAndGet(x);
+        }
+        for (int i = 0; i < N; i++) {
+            assertEquals(1, taken.get(i));
+        }
+    }
+}
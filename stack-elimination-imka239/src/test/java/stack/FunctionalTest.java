@@ -6,16 +6,80 @@ import java.util.Random;
 import java.util.Stack;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class FunctionalTest {
     private static Random R = new Random(0);
 
     @Test
     public void test() {
-        stack.Stack myStack = new StackImpl();
+        test(new StackImpl());
+    }
+
+    @Test
+    public void testRecycling() {
+        test(new StackImpl(true));
+    }
+
+    @Test
+    public void testFlatCombining() {
+        test(new FlatCombiningStack());
+    }
+
+    @Test
+    public void testRelaxed() {
+        // a single thread always works with its own sub-stack, so it sees a strict stack
+        test(new RelaxedStack());
+    }
+
+    @Test
+    public void testArray() {
+        test(new ArrayStack(ArrayStack.MAX_CAPACITY));
+    }
+
+    @Test
+    public void testArrayCapacity() {
+        ArrayStack myStack = new ArrayStack(3);
+        myStack.pushAll(new int[]{1, 2, 3});
+        assertFalse(myStack.offer(4));
+        try {
+            myStack.push(4);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(3, myStack.pop());
+        assertTrue(myStack.offer(5));
+        assertEquals(5, myStack.pop());
+        assertEquals(2, myStack.pop());
+        assertEquals(1, myStack.pop());
+        assertEquals(Integer.MIN_VALUE, myStack.pop());
+    }
+
+    @Test
+    public void testMetrics() {
+        assertNull(new StackImpl().metrics());
+        StackImpl myStack = new StackImpl(false, true);
+        for (int i = 0; i < 10; i++) {
+            myStack.push(i);
+        }
+        myStack.pushAll(new int[]{10, 11});
+        myStack.popMany(new int[3], 3);
+        while (myStack.pop() != Integer.MIN_VALUE) {
+        }
+        EliminationMetrics metrics = myStack.metrics();
+        assertEquals(11 + 1 + 9, metrics.casSuccesses());
+        assertEquals(0, metrics.casFailures());
+        assertEquals(0, metrics.eliminatedPairs());
+        assertEquals(metrics.casSuccesses(), myStack.threadMetrics().casSuccesses());
+    }
+
+    private void test(stack.Stack myStack) {
         Stack<Integer> javaStack = new Stack<>();
         for (int i = 0; i < 1_000_000; i++) {
-            int op = R.nextInt(2);
+            int op = R.nextInt(4);
             switch (op) {
             case 0:
                 // push
@@ -30,6 +94,24 @@ public class FunctionalTest {
                     assertEquals((int) javaStack.pop(), myStack.pop());
                 }
                 break;
+            case 2:
+                // pushAll
+                int[] xs = new int[R.nextInt(5)];
+                for (int j = 0; j < xs.length; j++) {
+                    xs[j] = R.nextInt(30);
+                    javaStack.push(xs[j]);
+                }
+                myStack.pushAll(xs);
+                break;
+            case 3:
+                // popMany
+                int[] dst = new int[R.nextInt(5)];
+                int count = myStack.popMany(dst, dst.length);
+                assertEquals(Math.min(dst.length, javaStack.size()), count);
+                for (int j = 0; j < count; j++) {
+                    assertEquals((int) javaStack.pop(), dst[j]);
+                }
+                break;
             }
         }
     }
@@ -17,6 +17,22 @@ public class SequentialStack extends VerifierState implements Stack {
         else return s.pop();
     }
 
+    @Override
+    public void pushAll(int[] xs) {
+        for (int x : xs) {
+            s.push(x);
+        }
+    }
+
+    @Override
+    public int popMany(int[] dst, int max) {
+        int count = 0;
+        while (count < Math.min(max, dst.length) && !s.isEmpty()) {
+            dst[count++] = s.pop();
+        }
+        return count;
+    }
+
     @NotNull
     @Override
     protected Object extractState() {
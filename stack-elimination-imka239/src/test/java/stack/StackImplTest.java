@@ -0,0 +1,79 @@
+package stack;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+
+public class StackImplTest {
+    private static final int PUSHERS = 2;
+    private static final int POPPERS = 2;
+    private static final int N = 200_000;
+
+    /**
+     * Runs pushes and pops on a stack which recycles its nodes, long enough for every
+     * node to be reused many times; a node reused too early would lose or duplicate
+     * an element.
+     */
+    @Test
+    public void testConcurrentRecycling() throws InterruptedException {
+        final StackImpl stack = new StackImpl(true);
+        final AtomicIntegerArray taken = new AtomicIntegerArray(PUSHERS * N);
+        final AtomicInteger popped = new AtomicInteger();
+        Thread[] threads = new Thread[PUSHERS + POPPERS];
+        for (int t = 0; t < PUSHERS; t++) {
+            final int id = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < N; i += 2) {
+                        if (i % 4 == 0) {
+                            stack.pushAll(new int[]{i * PUSHERS + id, (i + 1) * PUSHERS + id});
+                        } else {
+                            stack.push(i * PUSHERS + id);
+                            stack.push((i + 1) * PUSHERS + id);
+                        }
+                    }
+                }
+            });
+        }
+        for (int t = PUSHERS; t < PUSHERS + POPPERS; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    int[] dst = new int[3];
+                    long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+                    for (int k = 0; popped.get() < PUSHERS * N && System.nanoTime() < deadline; k++) {
+                        int count;
+                        if (k % 2 == 0) {
+                            dst[0] = stack.pop();
+                            count = dst[0] == Integer.MIN_VALUE ? 0 : 1;
+                        } else {
+                            count = stack.popMany(dst, dst.length);
+                        }
+                        for (int j = 0; j < count; j++) {
+                            taken.incrementAndGet(dst[j]);
+                        }
+                        if (count == 0) {
+                            Thread.yield();
+                        }
+                        popped.addAndGet(count);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int x = 0; x < PUSHERS * N; x++) {
+            assertEquals(1, taken.get(x));
+        }
+        assertEquals(Integer.MIN_VALUE, stack.pop());
+    }
+}
@@ -0,0 +1,107 @@
+package stack;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TraceTest {
+    private static final int THREADS = 4;
+    private static final int N = 100_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        File file = new File(folder.getRoot(), "trace");
+        final TraceWriter writer = new TraceWriter(file);
+        final TraceWriter.Stream[] streams = new TraceWriter.Stream[THREADS];
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            final int id = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        streams[id] = writer.newStream();
+                        for (int j = 0; j < N + id; j++) {
+                            streams[id].record(j % 3 == 0 ? TraceWriter.POP : TraceWriter.PUSH, id * N + j);
+                        }
+                    } catch (IOException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        writer.close();
+        assertEquals(1, folder.getRoot().list().length); // the spool files are gone
+
+        // a small window to cross its boundaries
+        try (TraceReader reader = new TraceReader(file, 1000)) {
+            assertEquals(THREADS, reader.streams());
+            int[] seen = new int[THREADS];
+            for (int i = 0; i < THREADS; i++) {
+                TraceReader.Cursor cursor = reader.cursor(i);
+                assertTrue(cursor.next());
+                int id = cursor.arg() / N;
+                seen[id]++;
+                assertEquals(N + id, cursor.count());
+                long timestamp = 0;
+                cursor.rewind();
+                for (int j = 0; j < N + id; j++) {
+                    assertTrue(cursor.next());
+                    assertEquals(j % 3 == 0 ? TraceWriter.POP : TraceWriter.PUSH, cursor.op());
+                    assertEquals(id * N + j, cursor.arg());
+                    assertTrue(cursor.timestamp() >= timestamp);
+                    timestamp = cursor.timestamp();
+                }
+                assertFalse(cursor.next());
+            }
+            for (int i = 0; i < THREADS; i++) {
+                assertEquals(1, seen[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testGenerate() throws IOException {
+        File file = new File(folder.getRoot(), "trace");
+        TraceGen.generate(file, 3, 10_000, 70, 100, 0);
+        try (TraceReader reader = new TraceReader(file)) {
+            assertEquals(3, reader.streams());
+            TraceReader.Cursor cursor = reader.cursor(1);
+            Random rand = new Random(1);
+            long timestamp = 0;
+            for (int j = 0; j < 10_000; j++) {
+                assertTrue(cursor.next());
+                timestamp += rand.nextInt(201);
+                assertEquals(timestamp, cursor.timestamp());
+                if (rand.nextInt(100) < 70) {
+                    assertEquals(TraceWriter.PUSH, cursor.op());
+                    assertEquals(rand.nextInt(), cursor.arg());
+                } else {
+                    assertEquals(TraceWriter.POP, cursor.op());
+                }
+            }
+            assertFalse(cursor.next());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotTrace() throws IOException {
+        File file = folder.newFile();
+        new TraceReader(file);
+    }
+}